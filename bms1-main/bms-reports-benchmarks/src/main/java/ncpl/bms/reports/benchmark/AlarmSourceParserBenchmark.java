@@ -0,0 +1,61 @@
+package ncpl.bms.reports.benchmark;
+
+import ncpl.bms.reports.util.AlarmSourceParser;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Per-row source parsing in AlarmReportService.fetchAlarmLogs, at four alarms per point per day.
+ * {@code compilePerCall} is how extractSourceName used to compile its pattern for every row.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AlarmSourceParserBenchmark {
+
+    private static final int ALARMS_PER_POINT_PER_DAY = 4;
+
+    @Param({"1", "7", "31"})
+    public int days;
+
+    @Param({"10", "50", "200"})
+    public int points;
+
+    private String[] sources;
+
+    @Setup
+    public void setUp() {
+        sources = new String[days * points * ALARMS_PER_POINT_PER_DAY];
+        for (int i = 0; i < sources.length; i++) {
+            int point = i % points + 1;
+            sources[i] = i % 3 == 0
+                    ? "local:|fox:|station:|slot:/Drivers/BacnetNetwork/AHU_" + (point % 12) + "/points/ROOM_" + point + "/HUMIDITY/HIGH"
+                    : "local:|fox:|station:|slot:/Drivers/BacnetNetwork/AHU_" + (point % 12) + "/points/ROOM_" + point + "/TEMP";
+        }
+    }
+
+    @Benchmark
+    public void compilePerCall(Blackhole blackhole) {
+        for (String source : sources) {
+            Pattern pattern = Pattern.compile("points/([^/]+)");
+            Matcher matcher = pattern.matcher(source);
+            blackhole.consume(matcher.find() ? matcher.group(1) : "");
+            blackhole.consume(AlarmSourceParser.extractMessageText(source));
+        }
+    }
+
+    @Benchmark
+    public void alarmSourceParser(Blackhole blackhole) {
+        for (String source : sources) {
+            blackhole.consume(AlarmSourceParser.extractSourceName(source));
+            blackhole.consume(AlarmSourceParser.extractMessageText(source));
+        }
+    }
+}
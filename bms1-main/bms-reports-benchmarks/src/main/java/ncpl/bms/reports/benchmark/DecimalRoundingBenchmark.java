@@ -0,0 +1,59 @@
+package ncpl.bms.reports.benchmark;
+
+import ncpl.bms.reports.util.DecimalRounding;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rounding of one report column (4464 ten-minute samples, i.e. 31 days) to one decimal:
+ * the BigDecimal path ReportDataService used per cell against {@link DecimalRounding}.
+ * The already rounded column mirrors what SQL ROUND(..., 1) hands back; the raw one has two decimals
+ * and therefore many exact ties that force the fallback.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DecimalRoundingBenchmark {
+
+    private static final int SAMPLES = 31 * 24 * 6;
+
+    @Param({"sqlRounded", "twoDecimals"})
+    public String values;
+
+    private double[] column;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(7L);
+        column = new double[SAMPLES];
+        double divisor = "sqlRounded".equals(values) ? 10.0 : 100.0;
+        for (int i = 0; i < SAMPLES; i++) {
+            column[i] = Math.round((18 + random.nextDouble() * 10) * divisor) / divisor;
+        }
+    }
+
+    @Benchmark
+    public void bigDecimalFromString(Blackhole blackhole) {
+        for (double value : column) {
+            Number numValue = value;
+            BigDecimal bd = new BigDecimal(numValue.toString());
+            bd = bd.setScale(1, RoundingMode.HALF_UP);
+            blackhole.consume(bd.doubleValue());
+        }
+    }
+
+    @Benchmark
+    public void decimalRounding(Blackhole blackhole) {
+        for (double value : column) {
+            blackhole.consume(DecimalRounding.roundHalfUp(value, 1));
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package ncpl.bms.reports.benchmark;
+
+import com.lowagie.text.Document;
+import com.lowagie.text.PageSize;
+import com.lowagie.text.pdf.PdfWriter;
+import ncpl.bms.reports.model.dto.ReportFrame;
+import ncpl.bms.reports.service.PdfTableWriter;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Table part of PdfService.generatePdf: rendering the report rows into an A4 landscape document through
+ * PdfTableWriter, 22 rows per page, discarding the bytes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PdfTableRenderBenchmark {
+
+    private static final int ROWS_PER_PAGE = 22;
+
+    @Param({"1", "7", "31"})
+    public int days;
+
+    @Param({"10", "50", "200"})
+    public int points;
+
+    private ReportFrame frame;
+    private List<String> headerLabels;
+
+    @Setup
+    public void setUp() {
+        SyntheticSite site = new SyntheticSite(days, points);
+        frame = site.toFrame();
+        headerLabels = site.headerLabels();
+    }
+
+    @Benchmark
+    public void renderTable(Blackhole blackhole) {
+        Document document = new Document(PageSize.A4.rotate());
+        PdfWriter writer = PdfWriter.getInstance(document, OutputStream.nullOutputStream());
+        document.open();
+
+        PdfTableWriter tableWriter = new PdfTableWriter(document, headerLabels, ROWS_PER_PAGE);
+        tableWriter.processFrame(frame);
+        tableWriter.finish();
+
+        document.close();
+        blackhole.consume(writer.getPageNumber());
+    }
+}
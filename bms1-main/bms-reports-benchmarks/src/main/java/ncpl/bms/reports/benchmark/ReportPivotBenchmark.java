@@ -0,0 +1,74 @@
+package ncpl.bms.reports.benchmark;
+
+import ncpl.bms.reports.model.dto.ReportFrame;
+import ncpl.bms.reports.service.ReportFrameReader;
+import ncpl.bms.reports.util.DecimalRounding;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.jdbc.core.ColumnMapRowMapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Java side of ReportDataService's pivot query: turning the cursor into report rows and rounding every value.
+ * {@code rowMaps} is the queryForList + roundValuesInResult path still used by generateReportData,
+ * {@code frame} is the ReportFrameReader path used by streamReportFrames.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReportPivotBenchmark {
+
+    private static final int FRAME_CHUNK_ROWS = 1024;
+
+    @Param({"1", "7", "31"})
+    public int days;
+
+    @Param({"10", "50", "200"})
+    public int points;
+
+    private SyntheticSite site;
+
+    @Setup
+    public void setUp() {
+        site = new SyntheticSite(days, points);
+    }
+
+    @Benchmark
+    public void rowMaps(Blackhole blackhole) throws SQLException {
+        ColumnMapRowMapper rowMapper = new ColumnMapRowMapper();
+        ResultSet rs = SyntheticResultSet.open(site);
+        int rowNum = 0;
+        while (rs.next()) {
+            Map<String, Object> row = rowMapper.mapRow(rs, rowNum++);
+            for (Map.Entry<String, Object> entry : row.entrySet()) {
+                if (entry.getKey().toLowerCase().contains("time") || entry.getValue() == null) {
+                    continue;
+                }
+                entry.setValue(DecimalRounding.roundHalfUp((Number) entry.getValue(), 1));
+            }
+            blackhole.consume(row);
+        }
+    }
+
+    @Benchmark
+    public void frame(Blackhole blackhole) throws SQLException {
+        ReportFrame frame = new ReportFrame(site.columns, FRAME_CHUNK_ROWS);
+        ResultSet rs = SyntheticResultSet.open(site);
+        ReportFrameReader reader = new ReportFrameReader(rs, frame);
+        while (rs.next()) {
+            reader.readRow(rs);
+            if (frame.size() == FRAME_CHUNK_ROWS) {
+                blackhole.consume(frame.getValue(0, FRAME_CHUNK_ROWS - 1));
+                frame.clear();
+            }
+        }
+        blackhole.consume(frame.size());
+    }
+}
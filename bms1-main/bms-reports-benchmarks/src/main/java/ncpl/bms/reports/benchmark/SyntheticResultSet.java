@@ -0,0 +1,89 @@
+package ncpl.bms.reports.benchmark;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Timestamp;
+import java.sql.Types;
+
+/**
+ * In-memory stand-in for the pivot query cursor: column 1 is the timestamp, columns 2.. are FLOAT values.
+ * Only the calls made by ReportFrameReader and Spring's ColumnMapRowMapper are implemented; both paths pay
+ * the same proxy dispatch per call, so the comparison between them stays fair.
+ */
+final class SyntheticResultSet implements InvocationHandler {
+
+    private final SyntheticSite site;
+    private int row = -1;
+    private boolean lastWasNull;
+
+    private SyntheticResultSet(SyntheticSite site) {
+        this.site = site;
+    }
+
+    static ResultSet open(SyntheticSite site) {
+        return (ResultSet) Proxy.newProxyInstance(SyntheticResultSet.class.getClassLoader(),
+                new Class<?>[]{ResultSet.class}, new SyntheticResultSet(site));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "next":
+                return ++row < site.rows();
+            case "getTimestamp":
+                lastWasNull = false;
+                return new Timestamp(site.timestamps[row]);
+            case "getDouble": {
+                double value = value((Integer) args[0]);
+                lastWasNull = Double.isNaN(value);
+                return lastWasNull ? 0.0 : value;
+            }
+            case "getObject": {
+                int index = (Integer) args[0];
+                if (index == 1) {
+                    lastWasNull = false;
+                    return new Timestamp(site.timestamps[row]);
+                }
+                double value = value(index);
+                lastWasNull = Double.isNaN(value);
+                return lastWasNull ? null : (Object) value;
+            }
+            case "wasNull":
+                return lastWasNull;
+            case "getMetaData":
+                return metaData();
+            case "close":
+                return null;
+            case "isClosed":
+                return row >= site.rows();
+            default:
+                throw new UnsupportedOperationException(method.getName());
+        }
+    }
+
+    private double value(int index) {
+        return site.values[index - 2][row];
+    }
+
+    private ResultSetMetaData metaData() {
+        return (ResultSetMetaData) Proxy.newProxyInstance(SyntheticResultSet.class.getClassLoader(),
+                new Class<?>[]{ResultSetMetaData.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getColumnCount":
+                            return site.columns.size() + 1;
+                        case "getColumnType":
+                            return (Integer) args[0] == 1 ? Types.TIMESTAMP : Types.DOUBLE;
+                        case "getColumnLabel":
+                        case "getColumnName":
+                            return (Integer) args[0] == 1 ? "timestamp" : site.columns.get((Integer) args[0] - 2);
+                        case "getColumnClassName":
+                            return (Integer) args[0] == 1 ? Timestamp.class.getName() : Double.class.getName();
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+}
@@ -0,0 +1,87 @@
+package ncpl.bms.reports.benchmark;
+
+import ncpl.bms.reports.model.dto.ReportFrame;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic trend data shaped like a plant: EMS_NEW_* point tables sampled every 10 minutes,
+ * values around room temperature/humidity already rounded to one decimal by SQL, and about 2% gaps.
+ */
+final class SyntheticSite {
+
+    static final int SAMPLES_PER_DAY = 24 * 6;
+    static final long START_MILLIS = LocalDateTime.of(2024, 1, 1, 0, 0).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    static final long INTERVAL_MILLIS = 10 * 60 * 1000L;
+
+    final List<String> columns;
+    final long[] timestamps;
+    // [column][row], NaN for a gap
+    final double[][] values;
+
+    SyntheticSite(int days, int points) {
+        Random random = new Random(31L * days + points);
+        int rows = days * SAMPLES_PER_DAY;
+        columns = pointTables(points);
+        timestamps = new long[rows];
+        values = new double[points][rows];
+        for (int row = 0; row < rows; row++) {
+            timestamps[row] = START_MILLIS + row * INTERVAL_MILLIS;
+        }
+        for (int column = 0; column < points; column++) {
+            double base = column % 2 == 0 ? 22 : 45;
+            for (int row = 0; row < rows; row++) {
+                values[column][row] = random.nextInt(50) == 0
+                        ? Double.NaN
+                        : Math.round((base + random.nextGaussian() * 2) * 10) / 10.0;
+            }
+        }
+    }
+
+    int rows() {
+        return timestamps.length;
+    }
+
+    ReportFrame toFrame() {
+        ReportFrame frame = new ReportFrame(columns, rows());
+        for (int row = 0; row < rows(); row++) {
+            int target = frame.addRow(timestamps[row]);
+            for (int column = 0; column < columns.size(); column++) {
+                frame.setValue(column, target, values[column][row]);
+            }
+        }
+        return frame;
+    }
+
+    List<String> headerLabels() {
+        List<String> labels = new ArrayList<>();
+        labels.add("Timestamp");
+        for (String column : columns) {
+            labels.add(column.substring("EMS_NEW_".length()) + "(C)\nRange: 18 - 25");
+        }
+        return labels;
+    }
+
+    static List<String> pointTables(int points) {
+        List<String> tables = new ArrayList<>(points);
+        for (int i = 1; i <= points; i++) {
+            tables.add(String.format("EMS_NEW_ROOM_%03d_TEMP", i));
+        }
+        return tables;
+    }
+
+    /**
+     * Template parameters as stored in report_template, e.g. EMS_NEW_ROOM_001_TEMP_From_18_To_25_Unit_C
+     */
+    static List<String> templateParameters(int points) {
+        List<String> parameters = new ArrayList<>(points);
+        for (String table : pointTables(points)) {
+            parameters.add(table + "_From_18_To_25_Unit_C");
+        }
+        return parameters;
+    }
+}
@@ -0,0 +1,65 @@
+package ncpl.bms.reports.benchmark;
+
+import ncpl.bms.reports.util.ParameterListCodec;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding and decoding of ReportTemplate.parameters (the VARBINARY column behind setParameters/getParameters),
+ * comparing the compact encoding with the Java serialization templates used to be stored in.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TemplateParametersBenchmark {
+
+    @Param({"10", "50", "200"})
+    public int points;
+
+    private List<String> parameters;
+    private byte[] encoded;
+    private byte[] legacy;
+
+    @Setup
+    public void setUp() throws IOException {
+        parameters = SyntheticSite.templateParameters(points);
+        encoded = ParameterListCodec.encode(parameters);
+        legacy = javaSerialize(parameters);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return ParameterListCodec.encode(parameters);
+    }
+
+    @Benchmark
+    public List<String> decode() {
+        return ParameterListCodec.decode(encoded);
+    }
+
+    @Benchmark
+    public byte[] javaSerialize() throws IOException {
+        return javaSerialize(parameters);
+    }
+
+    @Benchmark
+    public List<String> javaDeserialize() {
+        return ParameterListCodec.decode(legacy);
+    }
+
+    private static byte[] javaSerialize(List<String> list) throws IOException {
+        try (ByteArrayOutputStream bos = new ByteArrayOutputStream();
+             ObjectOutputStream out = new ObjectOutputStream(bos)) {
+            out.writeObject(new ArrayList<>(list));
+            out.flush();
+            return bos.toByteArray();
+        }
+    }
+}
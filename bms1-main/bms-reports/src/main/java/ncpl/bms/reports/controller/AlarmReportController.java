@@ -1,7 +1,10 @@
 package ncpl.bms.reports.controller;
 
+import ncpl.bms.reports.model.dto.StoredPdf;
 import ncpl.bms.reports.service.AlarmReportService;
+import ncpl.bms.reports.service.ReportBlobService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -19,6 +22,9 @@ public class AlarmReportController {
     @Autowired
     private AlarmReportService alarmService;
 
+    @Autowired
+    private ReportBlobService reportBlobService;
+
     // ✅ 1. Download Alarm Report → Save into Database automatically
     @GetMapping("/download")
     public ResponseEntity<byte[]> downloadAndSaveAlarmReport(@RequestParam String startDate,
@@ -66,18 +72,15 @@ public class AlarmReportController {
 
     // ✅ 2. View Stored Alarm Report by ID
     @GetMapping("/view/{id}")
-    public ResponseEntity<byte[]> viewStoredAlarmReport(@PathVariable int id) {
+    public ResponseEntity<Resource> viewStoredAlarmReport(@PathVariable int id) {
         try {
-            byte[] pdfBytes = alarmService.getStoredAlarmReportById(id);
+            StoredPdf stored = reportBlobService.download(ReportBlobService.StoredTable.ALARM, id);
 
-            if (pdfBytes == null || pdfBytes.length == 0) {
+            if (stored == null) {
                 return ResponseEntity.noContent().build();
             }
 
-            return ResponseEntity.ok()
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=stored_alarm_report_" + id + ".pdf")
-                    .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_PDF_VALUE)
-                    .body(pdfBytes);
+            return PdfDownloads.pdf(stored, "inline; filename=stored_alarm_report_" + id + ".pdf");
 
         } catch (Exception e) {
             e.printStackTrace();
@@ -1,6 +1,9 @@
 package ncpl.bms.reports.controller;
 import lombok.extern.slf4j.Slf4j;
+import ncpl.bms.reports.model.dto.ReportListFilter;
+import ncpl.bms.reports.model.dto.ReportPage;
 import ncpl.bms.reports.service.AuditReportService;
+import ncpl.bms.reports.service.ReportListService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
@@ -21,6 +24,9 @@ public class AuditReportController {
     @Autowired
     private AuditReportService auditService;
 
+    @Autowired
+    private ReportListService reportListService;
+
     // Log user login operation
     @PostMapping("/audit-login")
     public void logUserLogin(@RequestBody Map<String, String> requestBody) {
@@ -112,6 +118,12 @@ public class AuditReportController {
         return auditService.getAllAuditReports();
     }
 
+    // Paged and filtered, newest first: pass nextCursor of a page as cursor to get the next one
+    @GetMapping("/audit-reports/page")
+    public ReportPage<Map<String, Object>> getAuditReportPage(ReportListFilter filter) {
+        return reportListService.listActivity(ReportListService.AUDIT_TABLE, filter);
+    }
+
 
     // Download audit report as PDF
     @GetMapping("/download-audit-report")
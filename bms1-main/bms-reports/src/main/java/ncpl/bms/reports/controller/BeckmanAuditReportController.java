@@ -1,13 +1,17 @@
 package ncpl.bms.reports.controller;
 
+import ncpl.bms.reports.model.dto.StoredPdf;
 import ncpl.bms.reports.service.BeckmanAuditReportService;
+import ncpl.bms.reports.service.ReportBlobService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
         import java.text.SimpleDateFormat;
+import java.io.IOException;
 import java.util.Date;
 
 @RestController
@@ -18,6 +22,9 @@ public class BeckmanAuditReportController {
     @Autowired
     private BeckmanAuditReportService auditService;
 
+    @Autowired
+    private ReportBlobService reportBlobService;
+
     @GetMapping("/download")
     public ResponseEntity<byte[]> downloadAuditReport(@RequestParam String startDate,
                                                       @RequestParam String endDate) {
@@ -50,17 +57,14 @@ public class BeckmanAuditReportController {
     }
 
     @GetMapping("/view/{id}")
-    public ResponseEntity<byte[]> viewStoredAuditReport(@PathVariable int id) {
-        byte[] pdfBytes = auditService.getStoredAuditReportById(id);
+    public ResponseEntity<Resource> viewStoredAuditReport(@PathVariable int id) throws IOException {
+        StoredPdf stored = reportBlobService.download(ReportBlobService.StoredTable.AUDIT, id);
 
-        if (pdfBytes == null || pdfBytes.length == 0) {
+        if (stored == null) {
             return ResponseEntity.noContent().build();
         }
 
-        return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=stored_audit_report_" + id + ".pdf")
-                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_PDF_VALUE)
-                .body(pdfBytes);
+        return PdfDownloads.pdf(stored, "inline; filename=stored_audit_report_" + id + ".pdf");
     }
 
     // ✅ Flexible date parsing utility
@@ -1,5 +1,7 @@
 package ncpl.bms.reports.controller;
 import lombok.extern.slf4j.Slf4j;
+import ncpl.bms.reports.model.dto.ReportListFilter;
+import ncpl.bms.reports.model.dto.ReportPage;
 import ncpl.bms.reports.service.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpHeaders;
@@ -21,6 +23,9 @@ public class LogReportController {
     @Autowired
     private LogReportService logService;
 
+    @Autowired
+    private ReportListService reportListService;
+
     @PostMapping("/log-login")
     public void logUserLogin(@RequestBody Map<String, String> requestBody) {
         String username = requestBody.get("username");
@@ -44,6 +49,12 @@ public class LogReportController {
         return logService.getAllLogReports();
     }
 
+    // Paged and filtered, newest first: pass nextCursor of a page as cursor to get the next one
+    @GetMapping("/log-reports/page")
+    public ReportPage<Map<String, Object>> getLogReportPage(ReportListFilter filter) {
+        return reportListService.listActivity(ReportListService.LOG_TABLE, filter);
+    }
+
 
 
     @GetMapping("/download-log-report")
@@ -0,0 +1,30 @@
+package ncpl.bms.reports.controller;
+
+import ncpl.bms.reports.model.dto.StoredPdf;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Download responses for stored report PDFs. The PDF is returned as a {@link Resource}, so Spring streams it
+ * to the client with its Content-Length, answers Range requests with 206 Partial Content, and answers a
+ * request whose If-None-Match carries the ETag with 304 Not Modified.
+ */
+final class PdfDownloads {
+
+    private PdfDownloads() {
+    }
+
+    static ResponseEntity<Resource> pdf(StoredPdf stored, String contentDisposition) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_PDF)
+                .header(HttpHeaders.CONTENT_DISPOSITION, contentDisposition)
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                // Stamping a report changes its PDF, so clients revalidate instead of caching blindly
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .eTag(stored.getEtag())
+                .body(stored.getPdf());
+    }
+}
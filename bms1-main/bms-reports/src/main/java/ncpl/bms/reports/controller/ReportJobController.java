@@ -0,0 +1,97 @@
+package ncpl.bms.reports.controller;
+import lombok.extern.slf4j.Slf4j;
+import ncpl.bms.reports.exception.ReportQueueFullException;
+import ncpl.bms.reports.model.dto.ReportJobDTO;
+import ncpl.bms.reports.service.ReportJobService;
+import ncpl.bms.reports.service.engine.ReportPeriod;
+import ncpl.bms.reports.service.engine.ReportScheduler;
+import ncpl.bms.reports.service.engine.ScheduleLedger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.web.bind.annotation.*;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("v1")
+@CrossOrigin(origins = "http://localhost:4200")
+@Slf4j
+public class ReportJobController {
+
+    @Autowired
+    private ReportJobService reportJobService;
+
+    @Autowired
+    private ReportScheduler reportScheduler;
+
+    @Autowired
+    private ScheduleLedger scheduleLedger;
+
+    // Keeps this node's scheduled runs claimed while they are queued or running
+    @Scheduled(fixedDelayString = "${report.cluster.heartbeat-ms:60000}")
+    public void renewScheduleLeases() {
+        scheduleLedger.renewLeases();
+    }
+
+    // Takes over scheduled runs of nodes that stopped renewing their leases
+    @Scheduled(fixedDelayString = "${report.cluster.recovery-ms:300000}", initialDelayString = "${report.cluster.recovery-ms:300000}")
+    public void recoverScheduledRuns() {
+        reportScheduler.recoverExpiredRuns();
+    }
+
+    // Most recent report generation jobs, newest first
+    @GetMapping("/report-jobs")
+    public ResponseEntity<List<ReportJobDTO>> getRecentJobs(@RequestParam(defaultValue = "100") int limit) {
+        return ResponseEntity.ok(reportJobService.getRecentJobs(Math.min(limit, 1000)));
+    }
+
+    @GetMapping("/report-jobs/{id}")
+    public ResponseEntity<ReportJobDTO> getJob(@PathVariable long id) {
+        ReportJobDTO job = reportJobService.getJob(id);
+        return job == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(job);
+    }
+
+    // Regenerates the daily, weekly or monthly runs of one template (or all) between fromDate and toDate (epoch millis)
+    @PostMapping("/report-jobs/backfill")
+    public ResponseEntity<?> backfill(@RequestBody Map<String, String> requestBody) {
+        String period = requestBody.get("period");
+        String templateId = requestBody.get("templateId");
+        String fromDate = requestBody.get("fromDate");
+        String toDate = requestBody.get("toDate");
+        if (isBlank(period) || isBlank(fromDate) || isBlank(toDate)) {
+            return ResponseEntity.badRequest().body("period, fromDate and toDate are required");
+        }
+        if (Arrays.stream(ReportPeriod.values()).noneMatch(p -> p.name().equalsIgnoreCase(period.trim()))) {
+            return ResponseEntity.badRequest().body("period must be one of " + Arrays.toString(ReportPeriod.values()));
+        }
+        if (!isNumber(fromDate) || !isNumber(toDate) || (!isBlank(templateId) && !isNumber(templateId))) {
+            return ResponseEntity.badRequest().body("fromDate and toDate must be epoch millis and templateId a number");
+        }
+        try {
+            List<Long> jobIds = reportScheduler.backfill(ReportPeriod.valueOf(period.trim().toUpperCase()),
+                    isBlank(templateId) ? null : Long.valueOf(templateId.trim()),
+                    Instant.ofEpochMilli(Long.parseLong(fromDate.trim())), Instant.ofEpochMilli(Long.parseLong(toDate.trim())),
+                    requestBody.getOrDefault("requestedBy", "Backfill"));
+            return ResponseEntity.ok(jobIds);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (ReportQueueFullException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("Backfill failed", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getMessage());
+        }
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private static boolean isNumber(String value) {
+        return value.trim().matches("-?\\d{1,18}");
+    }
+}
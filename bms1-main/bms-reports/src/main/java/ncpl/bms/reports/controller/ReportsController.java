@@ -5,11 +5,19 @@ import ncpl.bms.reports.db.info.TableInfoService;
 import ncpl.bms.reports.model.dao.ReportTemplate;
 import ncpl.bms.reports.model.dto.GroupDTO;
 import ncpl.bms.reports.model.dto.ReportDTO;
+import ncpl.bms.reports.model.dto.ReportJobDTO;
+import ncpl.bms.reports.model.dto.ReportKind;
+import ncpl.bms.reports.model.dto.ReportListFilter;
+import ncpl.bms.reports.model.dto.ReportPage;
+import ncpl.bms.reports.model.dto.StoredPdf;
 import ncpl.bms.reports.service.*;
 import ncpl.bms.reports.util.DateConverter;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.Resource;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.util.*;
 
 import org.springframework.http.HttpHeaders;
@@ -44,6 +52,32 @@ public class ReportsController {
     @Autowired
     private GroupService groupService;
 
+    @Autowired
+    private ReportJobService reportJobService;
+
+    @Autowired
+    private ReportSingleFlight reportSingleFlight;
+
+    @Autowired
+    private ReportStampService reportStampService;
+
+    @Autowired
+    private ReportListService reportListService;
+
+    @Autowired
+    private ReportBlobService reportBlobService;
+
+    @Autowired
+    private ClusterLeaseService clusterLeaseService;
+
+    // Deletes stored PDFs no report points to any more, on the node holding the blob GC lease
+    @Scheduled(fixedDelayString = "${report.blob-store.gc-ms:21600000}", initialDelayString = "${report.blob-store.gc-ms:21600000}")
+    public void collectUnreferencedBlobs() {
+        if (clusterLeaseService.tryAcquire("report-blob-gc")) {
+            reportBlobService.collectGarbage();
+        }
+    }
+
 
     // Edit Template (Includes `units`)
     @PutMapping("editTemplate/{id}")
@@ -144,7 +178,30 @@ public class ReportsController {
             assigned_approver = null;
         }
 
-        pdfService.generatePdf(id, fromDateMills.toString(), toDateMills.toString(), username, assignedTo, assigned_approver);
+        reportSingleFlight.export(id, fromDateMills.toString(), toDateMills.toString(), username, assignedTo, assigned_approver,
+                new ReportJobProgress());
+    }
+
+    // Export Report as PDF in the background: returns the report job at once, poll /report-jobs/{jobId}
+    // for rows fetched and pages rendered; the finished job links to the stored report
+    @PostMapping("exportReport")
+    public ResponseEntity<ReportJobDTO> submitPdfExport(@RequestParam Long id,
+                                                        @RequestParam String fromDate,
+                                                        @RequestParam String toDate,
+                                                        @RequestParam("username") String username,
+                                                        @RequestParam String assignedTo,
+                                                        @RequestParam(required = false) String assigned_approver) throws Exception {
+
+        String fromDateMills = dateConverter.stringToLong(fromDate).toString();
+        String toDateMills = dateConverter.stringToLong(toDate).toString();
+        String approver = "null".equals(assigned_approver) ? null : assigned_approver;
+
+        long jobId = reportJobService.submit(ReportKind.MANUAL, id, fromDateMills, toDateMills, username,
+                progress -> reportSingleFlight.export(id, fromDateMills, toDateMills, username, assignedTo, approver, progress));
+
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .header(HttpHeaders.LOCATION, "/v1/report-jobs/" + jobId)
+                .body(reportJobService.getJob(jobId));
     }
 
     // Get All Reports
@@ -158,27 +215,28 @@ public class ReportsController {
         }
     }
 
+    // Paged and filtered, newest first: pass nextCursor of a page as cursor to get the next one
+    @GetMapping("/reports/page")
+    public ResponseEntity<ReportPage<ReportDTO>> getReportPage(ReportListFilter filter) {
+        return ResponseEntity.ok(reportListService.listReports(ReportBlobService.StoredTable.MANUAL, filter));
+    }
+
     // Get Report by ID
     @GetMapping("/reports/{id}")
-    public ResponseEntity<byte[]> getReportById(@PathVariable Long id) {
-        ReportDTO reportDTO = pdfService.getReportById(id);
-        if (reportDTO == null) {
+    public ResponseEntity<Resource> getReportById(@PathVariable Long id) throws IOException {
+        StoredPdf stored = reportStampService.download(ReportBlobService.StoredTable.MANUAL, id);
+        if (stored == null) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
 
         // Clean filename: remove "null_and_" if present
-        String filename = reportDTO.getName();
+        String filename = stored.getName();
         if (filename == null || filename.toLowerCase().startsWith("null")) {
             filename = filename == null ? "Report.pdf" : filename.replaceFirst("null_and_", "");
         }
 
-        HttpHeaders headers = new HttpHeaders();
-        headers.add(HttpHeaders.CONTENT_TYPE, "application/pdf");
-
         // This sets filename in browser viewer
-        headers.add(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + filename + "\"");
-
-        return new ResponseEntity<>(reportDTO.getPdfData(), headers, HttpStatus.OK);
+        return PdfDownloads.pdf(stored, "inline; filename=\"" + filename + "\"");
     }
 
 
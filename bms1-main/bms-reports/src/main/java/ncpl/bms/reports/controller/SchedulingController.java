@@ -2,6 +2,7 @@ package ncpl.bms.reports.controller;
 import lombok.extern.slf4j.Slf4j;
 import ncpl.bms.reports.service.*;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import java.util.List;
 import java.util.Map;
@@ -18,9 +19,9 @@ public class SchedulingController {
     @Autowired
     private SchedulingService schedulingService;
 
-    // Schedule daily report
+    // Schedule daily report; the schedule endpoints answer 400 with the reason when a setting is invalid
     @PostMapping("/schedule-report-daily")
-    public void scheduleReport(@RequestBody Map<String, String> requestBody) {
+    public ResponseEntity<String> scheduleReport(@RequestBody Map<String, String> requestBody) {
         String name = requestBody.get("name");
         String Strid = requestBody.get("id");
         String assigned_approver = requestBody.get("assignedApprover");
@@ -28,11 +29,17 @@ public class SchedulingController {
         int id = Integer.parseInt(Strid);
         String ScheduledBy = requestBody.get("scheduledBy");
         String dailyTime = requestBody.get("dailyTime");  // Get the dailyTime from the request
-        schedulingService.scheduleDailyReport( id, name, assignedTo, assigned_approver, ScheduledBy, dailyTime);
+        try {
+            schedulingService.scheduleDailyReport( id, name, assignedTo, assigned_approver, ScheduledBy, dailyTime,
+                    requestBody.get("timeZone"), requestBody.get("windowAlignment"), requestBody.get("dataOffset"));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+        return ResponseEntity.ok().build();
     }
 
     @PostMapping("/schedule-report-weekly")
-    public void scheduleWeeklyReport(@RequestBody Map<String, String> requestBody) {
+    public ResponseEntity<String> scheduleWeeklyReport(@RequestBody Map<String, String> requestBody) {
         String name = requestBody.get("name");
         String Strid = requestBody.get("id");
         String assigned_approver = requestBody.get("assignedApprover");
@@ -41,11 +48,17 @@ public class SchedulingController {
         String ScheduledBy = requestBody.get("scheduledBy");
         String weeklyTime = requestBody.get("weeklyTime");
         String weeklyDay = requestBody.get("weeklyDay");
-        schedulingService.scheduleWeeklyReport( id, name, assignedTo, assigned_approver, ScheduledBy, weeklyTime, weeklyDay);
+        try {
+            schedulingService.scheduleWeeklyReport( id, name, assignedTo, assigned_approver, ScheduledBy, weeklyTime, weeklyDay,
+                    requestBody.get("timeZone"), requestBody.get("windowAlignment"), requestBody.get("dataOffset"));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+        return ResponseEntity.ok().build();
     }
 
     @PostMapping("/schedule-report-monthly")
-    public void scheduleMonthlyReport(@RequestBody Map<String, String> requestBody) {
+    public ResponseEntity<String> scheduleMonthlyReport(@RequestBody Map<String, String> requestBody) {
         String name = requestBody.get("name");
         String Strid = requestBody.get("id");
         String assigned_approver = requestBody.get("assignedApprover");
@@ -54,7 +67,13 @@ public class SchedulingController {
         String ScheduledBy = requestBody.get("scheduledBy");
         String monthTime = requestBody.get("monthlyTime");
         String monthDay = requestBody.get("monthlyDay");
-        schedulingService.scheduleMonthlyReport( id, name, assignedTo, assigned_approver, ScheduledBy, monthTime, monthDay);
+        try {
+            schedulingService.scheduleMonthlyReport( id, name, assignedTo, assigned_approver, ScheduledBy, monthTime, monthDay,
+                    requestBody.get("timeZone"), requestBody.get("windowAlignment"), requestBody.get("dataOffset"));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+        return ResponseEntity.ok().build();
     }
 
     @GetMapping("/get-all-daily-scheduled-reports")
@@ -1,6 +1,9 @@
 package ncpl.bms.reports.controller;
 
+import ncpl.bms.reports.model.dto.ReportListFilter;
+import ncpl.bms.reports.model.dto.ReportPage;
 import ncpl.bms.reports.model.dto.StoredAlarmReportDTO;
+import ncpl.bms.reports.service.ReportListService;
 import ncpl.bms.reports.service.StoredAlarmReportService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -16,6 +19,9 @@ public class StoredAlarmReportController {
     @Autowired
     private StoredAlarmReportService storedAlarmReportService;
 
+    @Autowired
+    private ReportListService reportListService;
+
     // List all stored alarm reports
     @GetMapping("/list")
     public ResponseEntity<List<StoredAlarmReportDTO>> listStoredAlarmReports() {
@@ -27,4 +33,10 @@ public class StoredAlarmReportController {
             return ResponseEntity.internalServerError().build();
         }
     }
-}
\ No newline at end of file
+
+    // Paged and filtered, newest first: pass nextCursor of a page as cursor to get the next one
+    @GetMapping("/list/page")
+    public ResponseEntity<ReportPage<StoredAlarmReportDTO>> listStoredAlarmReportPage(ReportListFilter filter) {
+        return ResponseEntity.ok(reportListService.listAlarmReports(filter));
+    }
+}
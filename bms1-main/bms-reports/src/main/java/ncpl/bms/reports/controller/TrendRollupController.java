@@ -0,0 +1,41 @@
+package ncpl.bms.reports.controller;
+import lombok.extern.slf4j.Slf4j;
+import ncpl.bms.reports.service.TrendRollupService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.web.bind.annotation.*;
+import java.sql.Timestamp;
+import java.util.Map;
+
+@RestController
+@RequestMapping("v1")
+@CrossOrigin(origins = "http://localhost:4200")
+@Slf4j
+public class TrendRollupController {
+
+    @Autowired
+    private TrendRollupService trendRollupService;
+
+    // Only the node holding the rollup lease refreshes, the others take over if it stops
+    @Scheduled(fixedDelayString = "${report.rollup.refresh-ms:60000}", initialDelayString = "${report.rollup.initial-delay-ms:30000}")
+    public void runRollupRefreshTask() {
+        trendRollupService.refreshAll();
+    }
+
+    // Last complete bucket per trend table
+    @GetMapping("/rollup/watermarks")
+    public ResponseEntity<Map<String, Timestamp>> getWatermarks() {
+        return ResponseEntity.ok(trendRollupService.getAllWatermarks());
+    }
+
+    // 202 once the refresh is handed to the scheduler, 409 while one is already running or queued on this node
+    @PostMapping("/rollup/refresh")
+    public ResponseEntity<Void> refresh() {
+        if (!trendRollupService.requestRefresh()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        return ResponseEntity.accepted().build();
+    }
+}
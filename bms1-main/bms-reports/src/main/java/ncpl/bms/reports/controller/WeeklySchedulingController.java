@@ -2,13 +2,16 @@ package ncpl.bms.reports.controller;
 import lombok.extern.slf4j.Slf4j;
 import ncpl.bms.reports.db.info.TableInfoService;
 import ncpl.bms.reports.model.dto.ReportDTO;
+import ncpl.bms.reports.model.dto.ReportListFilter;
+import ncpl.bms.reports.model.dto.ReportPage;
+import ncpl.bms.reports.model.dto.StoredPdf;
 import ncpl.bms.reports.service.*;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.HttpHeaders;
+import org.springframework.core.io.Resource;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.web.bind.annotation.*;
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 
@@ -24,6 +27,12 @@ public class WeeklySchedulingController {
     @Autowired
     private WeeklySchedulingService weeklySchedulingService;
 
+    @Autowired
+    private ReportStampService reportStampService;
+
+    @Autowired
+    private ReportListService reportListService;
+
     @Autowired
     private TableInfoService tableInfoService;
     @Autowired
@@ -32,12 +41,6 @@ public class WeeklySchedulingController {
     @Autowired
     private LogReportService logService;
 
-    @Scheduled(cron = "0 0 * * * ?") // This will run the job at the start of every hour
-    public void runWeeklyReportGenerationTask() {
-        //log.info("Started cron job for weekly report generation");
-        weeklySchedulingService.generateWeeklyReports();
-    }
-
     @GetMapping("/weekly-reports")
     public ResponseEntity<List<ReportDTO>> getReports() {
         try {
@@ -49,16 +52,19 @@ public class WeeklySchedulingController {
         }
     }
 
+    // Paged and filtered, newest first: pass nextCursor of a page as cursor to get the next one
+    @GetMapping("/weekly-reports/page")
+    public ResponseEntity<ReportPage<ReportDTO>> getReportPage(ReportListFilter filter) {
+        return ResponseEntity.ok(reportListService.listReports(ReportBlobService.StoredTable.WEEKLY, filter));
+    }
+
     @GetMapping("/weekly-reports/{id}")
-    public ResponseEntity<byte[]> getReportById(@PathVariable Long id) {
-        ReportDTO reportDTO = weeklySchedulingService.getWeeklyReportById(id);
-        if (reportDTO == null) {
+    public ResponseEntity<Resource> getReportById(@PathVariable Long id) throws IOException {
+        StoredPdf stored = reportStampService.download(ReportBlobService.StoredTable.WEEKLY, id);
+        if (stored == null) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
-        HttpHeaders headers = new HttpHeaders();
-        headers.add(HttpHeaders.CONTENT_TYPE, "application/pdf");
-        headers.add(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=report_" + id + ".pdf");
-        return new ResponseEntity<>(reportDTO.getPdfData(), headers, HttpStatus.OK);
+        return PdfDownloads.pdf(stored, "attachment; filename=report_" + id + ".pdf");
     }
 
     @PutMapping("/weekly-reports/review/{id}")
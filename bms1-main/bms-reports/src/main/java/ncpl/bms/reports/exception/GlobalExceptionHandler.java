@@ -1,8 +1,10 @@
 package ncpl.bms.reports.exception;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.client.HttpClientErrorException;
@@ -13,6 +15,15 @@ import org.springframework.web.servlet.NoHandlerFoundException;
 @Slf4j
 public class GlobalExceptionHandler {
 
+    // The report pool is saturated: ask the client to come back rather than run the report on the request thread
+    @ExceptionHandler(ReportQueueFullException.class)
+    public ResponseEntity<ProblemDetail> handleReportQueueFull(ReportQueueFullException ex) {
+        log.warn(ex.getMessage());
+        return ResponseEntity.status(503)
+                .header(HttpHeaders.RETRY_AFTER, "60")
+                .body(ProblemDetail.forStatusAndDetail(HttpStatusCode.valueOf(503), ex.getMessage()));
+    }
+
     @ExceptionHandler(Exception.class)
     public ProblemDetail handleSecurityException(Exception ex){
 
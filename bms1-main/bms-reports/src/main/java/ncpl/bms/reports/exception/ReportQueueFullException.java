@@ -0,0 +1,11 @@
+package ncpl.bms.reports.exception;
+
+/**
+ * The report job queue is full; the request can be retried once jobs have drained
+ */
+public class ReportQueueFullException extends RuntimeException {
+
+    public ReportQueueFullException(String message) {
+        super(message);
+    }
+}
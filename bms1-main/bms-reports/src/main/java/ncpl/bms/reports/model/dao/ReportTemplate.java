@@ -1,10 +1,13 @@
 package ncpl.bms.reports.model.dao;
 
 import jakarta.persistence.*;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
+import ncpl.bms.reports.util.ParameterListCodec;
 
-import java.io.*;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 @Entity
@@ -31,34 +34,56 @@ public class ReportTemplate {
 
     private String roomName;
 
+    // Decoded parameters, memoised for the byte[] they were decoded from
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private List<String> decodedParameters;
+
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private byte[] decodedFrom;
+
     // Setter for List<String> -> byte[]
     public void setParameters(List<String> parameters) {
-        this.parameters = serializeList(parameters);
+        this.parameters = ParameterListCodec.encode(parameters);
+        this.decodedParameters = parameters == null ? null : Collections.unmodifiableList(new ArrayList<>(parameters));
+        this.decodedFrom = this.parameters;
     }
 
-    // Getter for byte[] -> List<String>
+    // Getter for byte[] -> List<String>, decoded on first use; the list is read-only
     public List<String> getParameters() {
-        return deserializeList(this.parameters);
+        if (decodedFrom != parameters) {
+            decodedParameters = ParameterListCodec.decode(parameters);
+            decodedFrom = parameters;
+        }
+        return decodedParameters;
     }
 
-    private byte[] serializeList(List<String> list) {
-        if (list == null) return null;
-        try (ByteArrayOutputStream bos = new ByteArrayOutputStream();
-             ObjectOutputStream out = new ObjectOutputStream(bos)) {
-            out.writeObject(list);
-            return bos.toByteArray();
-        } catch (IOException e) {
-            throw new RuntimeException("Error serializing list", e);
+    /**
+     * Detached copy of this template; the decoded parameters are read-only and shared
+     */
+    public ReportTemplate copy() {
+        ReportTemplate copy = new ReportTemplate();
+        copy.id = id;
+        copy.name = name;
+        copy.parameters = parameters == null ? null : parameters.clone();
+        copy.additionalInfo = additionalInfo;
+        copy.report_group = report_group;
+        copy.roomId = roomId;
+        copy.roomName = roomName;
+        if (decodedFrom == parameters) {
+            copy.decodedParameters = decodedParameters;
+            copy.decodedFrom = copy.parameters;
         }
+        return copy;
     }
 
-    private List<String> deserializeList(byte[] data) {
-        if (data == null) return null;
-        try (ByteArrayInputStream bis = new ByteArrayInputStream(data);
-             ObjectInputStream in = new ObjectInputStream(bis)) {
-            return (List<String>) in.readObject();
-        } catch (IOException | ClassNotFoundException e) {
-            throw new RuntimeException("Error deserializing list", e);
-        }
+    /**
+     * True while the stored parameters are still in the old Java-serialized form
+     */
+    public boolean hasLegacyParameters() {
+        return ParameterListCodec.isLegacy(parameters);
     }
 }
@@ -0,0 +1,105 @@
+package ncpl.bms.reports.model.dto;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A template parameter such as {@code EMS_NEW_AHU_01_RH_From_18_To_25_Unit_%}, split once into the trend table
+ * it reads ({@code EMS_NEW_AHU_01_RH}), the optional alarm range (18 to 25) and the optional unit (%).
+ * A missing or unreadable limit is open: -Infinity for from, +Infinity for to.
+ */
+@Getter
+@Slf4j
+public final class ParameterSpec {
+
+    private static final String FROM_MARKER = "_From_";
+    private static final String TO_MARKER = "_To_";
+    private static final String UNIT_MARKER = "_Unit_";
+
+    private final String parameter;
+    private final String baseTable;
+    private final double from;
+    private final double to;
+    private final String unit;
+
+    private ParameterSpec(String parameter, String baseTable, double from, double to, String unit) {
+        this.parameter = parameter;
+        this.baseTable = baseTable;
+        this.from = from;
+        this.to = to;
+        this.unit = unit;
+    }
+
+    public static ParameterSpec parse(String parameter) {
+        int fromIndex = parameter.lastIndexOf(FROM_MARKER);
+        int toIndex = parameter.lastIndexOf(TO_MARKER);
+        int unitIndex = parameter.lastIndexOf(UNIT_MARKER);
+
+        double from = Double.NEGATIVE_INFINITY;
+        double to = Double.POSITIVE_INFINITY;
+        if (fromIndex >= 0) {
+            int end = toIndex > fromIndex ? toIndex : unitIndex > fromIndex ? unitIndex : parameter.length();
+            from = parseLimit(parameter, fromIndex + FROM_MARKER.length(), end, Double.NEGATIVE_INFINITY);
+        }
+        if (toIndex >= 0) {
+            int end = unitIndex > toIndex ? unitIndex : parameter.length();
+            to = parseLimit(parameter, toIndex + TO_MARKER.length(), end, Double.POSITIVE_INFINITY);
+        }
+        String unit = unitIndex >= 0 ? parameter.substring(unitIndex + UNIT_MARKER.length()) : "";
+
+        return new ParameterSpec(parameter, baseTable(parameter), from, to, unit);
+    }
+
+    /**
+     * Specs in template order; a parameter that appears twice yields two specs
+     */
+    public static List<ParameterSpec> parseAll(List<String> parameters) {
+        if (parameters == null) return Collections.emptyList();
+        List<ParameterSpec> specs = new ArrayList<>(parameters.size());
+        for (String parameter : parameters) {
+            specs.add(parse(parameter));
+        }
+        return Collections.unmodifiableList(specs);
+    }
+
+    /**
+     * True when both limits are set, i.e. the header shows "Range: from - to"
+     */
+    public boolean hasRange() {
+        return from != Double.NEGATIVE_INFINITY && to != Double.POSITIVE_INFINITY;
+    }
+
+    public boolean hasUnit() {
+        return !unit.isEmpty();
+    }
+
+    // Everything before the first suffix marker names the trend table
+    private static String baseTable(String parameter) {
+        String base = parameter;
+        if (base.contains(FROM_MARKER)) base = base.substring(0, base.indexOf(FROM_MARKER));
+        if (base.contains(TO_MARKER)) base = base.substring(0, base.indexOf(TO_MARKER));
+        if (base.contains(UNIT_MARKER)) base = base.substring(0, base.indexOf(UNIT_MARKER));
+        return base;
+    }
+
+    private static double parseLimit(String parameter, int start, int end, double open) {
+        if (end <= start) {
+            return open;
+        }
+        try {
+            return Double.parseDouble(parameter.substring(start, end));
+        } catch (NumberFormatException e) {
+            log.warn("Invalid range limit in parameter: {}", parameter);
+            return open;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return parameter;
+    }
+}
@@ -0,0 +1,114 @@
+package ncpl.bms.reports.model.dto;
+
+import java.sql.Timestamp;
+import java.util.*;
+
+/**
+ * Columnar form of the pivoted trend report: one epoch-millis timestamp per row and one primitive
+ * {@code double[]} per parameter column. Missing values are stored as NaN (SQL Server FLOAT cannot hold NaN,
+ * so it never collides with real data). Rows are appended by {@code ReportDataService} straight from the
+ * ResultSet; a frame can be cleared and refilled so streaming callers reuse the same arrays per chunk.
+ */
+public class ReportFrame {
+
+    private final List<String> columns;
+    private long[] timestamps;
+    private final double[][] values;
+    private int size;
+
+    public ReportFrame(List<String> columns, int initialCapacity) {
+        this.columns = Collections.unmodifiableList(new ArrayList<>(columns));
+        int capacity = Math.max(initialCapacity, 16);
+        this.timestamps = new long[capacity];
+        this.values = new double[columns.size()][capacity];
+    }
+
+    /**
+     * Appends a row with all values missing and returns its index
+     */
+    public int addRow(long timestamp) {
+        if (size == timestamps.length) {
+            grow();
+        }
+        timestamps[size] = timestamp;
+        for (double[] column : values) {
+            column[size] = Double.NaN;
+        }
+        return size++;
+    }
+
+    public void setValue(int column, int row, double value) {
+        values[column][row] = value;
+    }
+
+    private void grow() {
+        int capacity = timestamps.length * 2;
+        timestamps = Arrays.copyOf(timestamps, capacity);
+        for (int i = 0; i < values.length; i++) {
+            values[i] = Arrays.copyOf(values[i], capacity);
+        }
+    }
+
+    /**
+     * Drops all rows but keeps the allocated arrays
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public List<String> getColumns() {
+        return columns;
+    }
+
+    public int getColumnCount() {
+        return columns.size();
+    }
+
+    public long getTimestamp(int row) {
+        return timestamps[row];
+    }
+
+    public double getValue(int column, int row) {
+        return values[column][row];
+    }
+
+    public boolean isNull(int column, int row) {
+        return Double.isNaN(values[column][row]);
+    }
+
+    /**
+     * Backing array of a column; only the first {@link #size()} entries are valid
+     */
+    public double[] getColumnValues(int column) {
+        return values[column];
+    }
+
+    /**
+     * Row in the legacy map form (timestamp as {@link Timestamp}, values as Double or null)
+     */
+    public Map<String, Object> getRow(int row) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("timestamp", new Timestamp(timestamps[row]));
+        for (int i = 0; i < columns.size(); i++) {
+            double value = values[i][row];
+            map.put(columns.get(i), Double.isNaN(value) ? null : value);
+        }
+        return map;
+    }
+
+    public List<Map<String, Object>> toRows() {
+        List<Map<String, Object>> rows = new ArrayList<>(size);
+        for (int row = 0; row < size; row++) {
+            rows.add(getRow(row));
+        }
+        return rows;
+    }
+}
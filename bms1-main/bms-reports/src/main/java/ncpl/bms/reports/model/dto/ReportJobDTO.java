@@ -0,0 +1,25 @@
+package ncpl.bms.reports.model.dto;
+
+import lombok.Data;
+
+import java.sql.Timestamp;
+
+@Data
+public class ReportJobDTO {
+    private Long id;
+    private String kind;
+    private Long templateId;
+    private String fromDate;
+    private String toDate;
+    private String requestedBy;
+    private String status;
+    private Timestamp submittedAt;
+    private Timestamp startedAt;
+    private Timestamp finishedAt;
+    private String errorMessage;
+    private Long rowsFetched;
+    private Integer pagesRendered;
+    // Stored report produced by the job and where to fetch it, set once the job has succeeded
+    private Long reportId;
+    private String reportUrl;
+}
@@ -0,0 +1,17 @@
+package ncpl.bms.reports.model.dto;
+
+/**
+ * The kinds of reports the application generates
+ */
+public enum ReportKind {
+    MANUAL,
+    DAILY,
+    WEEKLY,
+    MONTHLY,
+    ALARM,
+    AUDIT;
+
+    public String tag() {
+        return name().toLowerCase();
+    }
+}
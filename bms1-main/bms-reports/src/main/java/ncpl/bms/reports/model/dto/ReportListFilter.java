@@ -0,0 +1,27 @@
+package ncpl.bms.reports.model.dto;
+
+import lombok.Data;
+
+/**
+ * Query parameters of the paged list endpoints; every filter is optional.
+ * from and to are epoch millis and bound the generation time, cursor is the nextCursor of the previous page.
+ */
+@Data
+public class ReportListFilter {
+
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 500;
+
+    private Long from;
+    private Long to;
+    private Long templateId;
+    private Boolean approved;
+    // Report creator; for activity logs the user who acted
+    private String generatedBy;
+    private Long cursor;
+    private Integer limit;
+
+    public int effectiveLimit() {
+        return limit == null || limit <= 0 ? DEFAULT_LIMIT : Math.min(limit, MAX_LIMIT);
+    }
+}
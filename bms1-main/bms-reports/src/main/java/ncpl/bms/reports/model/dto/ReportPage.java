@@ -0,0 +1,18 @@
+package ncpl.bms.reports.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * One page of a list, newest first. Pass nextCursor as the cursor of the next request to continue;
+ * it is null on the last page.
+ */
+@Getter
+@AllArgsConstructor
+public class ReportPage<T> {
+
+    private final List<T> items;
+    private final Long nextCursor;
+}
@@ -0,0 +1,18 @@
+package ncpl.bms.reports.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.core.io.Resource;
+
+/**
+ * A stored report PDF ready to be streamed to a download response
+ */
+@Getter
+@AllArgsConstructor
+public class StoredPdf {
+
+    private final String name;
+    private final Resource pdf;
+    // SHA-256 of the PDF, which changes whenever the report is stamped
+    private final String etag;
+}
@@ -0,0 +1,71 @@
+package ncpl.bms.reports.model.dto;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import ncpl.bms.reports.model.dao.ReportTemplate;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A report template together with everything the report pipeline derives from it, resolved once
+ * when the template is loaded into the cache.
+ */
+@Getter
+public class TemplateMetadata {
+
+    private static final String NOT_AVAILABLE = "N/A";
+
+    private final ReportTemplate template;
+    private final List<String> parameters;
+    private final List<ParameterSpec> parameterSpecs;
+    // Distinct trend tables in template order, i.e. the report columns
+    private final List<String> baseTables;
+    @Getter(AccessLevel.NONE)
+    private final Map<String, ParameterSpec> specsByTable;
+    private final String name;
+    private final String reportGroup;
+    private final String roomId;
+    private final String roomName;
+    private final long loadedAtMillis;
+
+    public TemplateMetadata(ReportTemplate template, long loadedAtMillis) {
+        this.template = template;
+        List<String> templateParameters = template.getParameters();
+        this.parameters = templateParameters == null ? Collections.emptyList() : templateParameters;
+        this.parameterSpecs = ParameterSpec.parseAll(this.parameters);
+
+        Map<String, ParameterSpec> byTable = new LinkedHashMap<>();
+        for (ParameterSpec spec : parameterSpecs) {
+            // Later parameters for the same table win, as the range maps always did
+            byTable.put(spec.getBaseTable(), spec);
+        }
+        this.specsByTable = Collections.unmodifiableMap(byTable);
+        this.baseTables = List.copyOf(byTable.keySet());
+        this.name = template.getName();
+        this.reportGroup = template.getReport_group();
+        this.roomId = template.getRoomId() != null ? template.getRoomId().trim() : NOT_AVAILABLE;
+        this.roomName = template.getRoomName() != null ? template.getRoomName().trim() : NOT_AVAILABLE;
+        this.loadedAtMillis = loadedAtMillis;
+    }
+
+    /**
+     * Spec of the column reading the given trend table, or null when the template has no such column
+     */
+    public ParameterSpec getSpec(String baseTable) {
+        return specsByTable.get(baseTable);
+    }
+
+    public Long getTemplateId() {
+        return template.getId();
+    }
+
+    /**
+     * e.g. "Room ID &amp; Name: BDC012 &amp; Sample Room", as printed in the report header
+     */
+    public String getRoomIdAndName() {
+        return "Room ID & Name: " + roomId + " & " + roomName;
+    }
+}
@@ -8,8 +8,9 @@ import com.lowagie.text.pdf.*;
 import java.io.ByteArrayInputStream;
 import lombok.extern.slf4j.Slf4j;
 import ncpl.bms.reports.model.dto.AlarmRecordDTO;
+import ncpl.bms.reports.model.dto.ReportKind;
+import ncpl.bms.reports.util.AlarmSourceParser;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.ClassPathResource;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import java.awt.*;
@@ -19,8 +20,6 @@ import java.sql.ResultSet;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 @Service
 @Slf4j
@@ -33,6 +32,10 @@ public class AlarmReportService {
     private JdbcTemplate jdbcTemplate;
     @Autowired
     private AuditReportService auditReportService;
+    @Autowired
+    private ReportMetrics reportMetrics;
+    @Autowired
+    private ReportBlobService reportBlobService;
 
     public List<AlarmRecordDTO> fetchAlarmLogs(long startMillis, long endMillis) {
         String sql = "SELECT " +
@@ -53,46 +56,17 @@ public class AlarmReportService {
         return jdbcTemplate.query(sql, new Object[]{startMillis, endMillis}, (ResultSet rs, int rowNum) -> {
             AlarmRecordDTO dto = new AlarmRecordDTO();
             dto.setTimestamp(rs.getLong("timestamp"));
-            dto.setSource(extractSourceName(rs.getString("source")));
+            dto.setSource(AlarmSourceParser.extractSourceName(rs.getString("source")));
             dto.setTimeOfLastAlarm(rs.getLong("timeOfLastAlarm"));
             dto.setAckState(rs.getLong("ackState"));
             dto.setAlarmClass(rs.getLong("alarmClass"));
             dto.setNormalTime(rs.getLong("normalTime"));
             dto.setAckTime(rs.getLong("ackTime"));
-            dto.setMessageText(extractMessageText(rs.getString("source")));
+            dto.setMessageText(AlarmSourceParser.extractMessageText(rs.getString("source")));
             return dto;
         });
     }
 
-    private String extractSourceName(String fullSource) {
-        if (fullSource == null) return "";
-        Pattern pattern = Pattern.compile("points/([^/]+)");
-        Matcher matcher = pattern.matcher(fullSource);
-        return matcher.find() ? matcher.group(1) : "";
-    }
-
-    private String extractMessageText(String fullSource)    {
-        if (fullSource == null) return "";
-
-        int index = fullSource.indexOf("points/");
-        if (index == -1) return "";
-
-        String afterPoints = fullSource.substring(index + "points/".length());
-        String[] segments = afterPoints.split("/");
-
-        if (segments.length == 0) {
-            return "";
-        }
-
-        // If second last is HUMIDITY → return HUMIDITY + lastSegment
-        if (segments.length >= 2 && "HUMIDITY".equalsIgnoreCase(segments[segments.length - 2])) {
-            return segments[segments.length - 2] + segments[segments.length - 1];
-        }
-
-        // Else return only last segment
-        return segments[segments.length - 1];
-    }
-
     private String formatEpoch(Long millis) {
         try {
             return new SimpleDateFormat("dd-MMM-yyyy HH:mm:ss").format(new Date(millis));
@@ -186,8 +160,8 @@ public class AlarmReportService {
         byte[] updatedPdf = outputStream.toByteArray();
         long reviewTime = System.currentTimeMillis();
 
-        String sql = "UPDATE StoredAlarmReport SET report_data = ?, reviewed_by = ?, review_date = ? WHERE id = ?";
-        jdbcTemplate.update(sql, updatedPdf, effectiveReviewer, reviewTime, reportId);
+        String sql = "UPDATE StoredAlarmReport SET blob_ref = ?, report_data = NULL, reviewed_by = ?, review_date = ? WHERE id = ?";
+        jdbcTemplate.update(sql, reportBlobService.store(updatedPdf), effectiveReviewer, reviewTime, reportId);
 
         log.info("Alarm report reviewed by {} at {}", effectiveReviewer, formattedDate);
     }
@@ -215,9 +189,7 @@ public class AlarmReportService {
 
     public byte[] getStoredAlarmReportById(int reportId) {
         try {
-            String sql = "SELECT report_data FROM StoredAlarmReport WHERE id = ?";
-
-            return jdbcTemplate.queryForObject(sql, new Object[]{reportId}, byte[].class);
+            return reportBlobService.load(ReportBlobService.StoredTable.ALARM, reportId);
         } catch (Exception e) {
             log.error("Error fetching stored alarm report from database", e);
             return null;
@@ -226,29 +198,41 @@ public class AlarmReportService {
 
     public void saveAlarmReportToDatabase(byte[] pdfBytes, String username) {
         try {
-            String sql = "INSERT INTO StoredAlarmReport (report_name, generated_on, report_data, generated_by) VALUES (?, ?, ?, ?)";
+            String sql = "INSERT INTO StoredAlarmReport (report_name, generated_on, blob_ref, generated_by) VALUES (?, ?, ?, ?)";
 
             String reportName = "Alarm_Report_" + new SimpleDateFormat("yyyyMMdd_HHmmss").format(new Date());
             Date now = new Date();
 
-            jdbcTemplate.update(sql, reportName, new java.sql.Timestamp(now.getTime()), pdfBytes, username);
+            long storeStart = System.nanoTime();
+            jdbcTemplate.update(sql, reportName, new java.sql.Timestamp(now.getTime()), reportBlobService.store(pdfBytes), username);
+            reportMetrics.recordStage(ReportKind.ALARM, null, ReportMetrics.STAGE_STORE, System.nanoTime() - storeStart);
 
             log.info("Alarm report saved by '{}' into StoredAlarmReport table.", username);
         } catch (Exception e) {
+            reportMetrics.countFailure(ReportKind.ALARM, null, e);
             log.error("Error saving alarm report to database", e);
         }
     }
 
     public byte[] generateAlarmReportPdf(long startMillis, long endMillis, String username) {
-        List<AlarmRecordDTO> logs = fetchAlarmLogs(startMillis, endMillis);
+        long start = System.nanoTime();
+        List<AlarmRecordDTO> logs;
+        try {
+            logs = fetchAlarmLogs(startMillis, endMillis);
+            reportMetrics.recordStage(ReportKind.ALARM, null, ReportMetrics.STAGE_QUERY, System.nanoTime() - start);
 
-        if (logs == null || logs.isEmpty()) {
-            throw new RuntimeException("No alarm records found in the selected time range.");
+            if (logs == null || logs.isEmpty()) {
+                throw new RuntimeException("No alarm records found in the selected time range.");
+            }
+        } catch (RuntimeException e) {
+            reportMetrics.recordFailure(ReportKind.ALARM, null, System.nanoTime() - start, e);
+            throw e;
         }
 
 
         System.out.println("Generating alarm report for user: " + username);
 
+        long renderStart = System.nanoTime();
         try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
             Document document = new Document(PageSize.A4.rotate(), 36, 36, 110, 60);
             PdfWriter writer = PdfWriter.getInstance(document, out);
@@ -261,7 +245,7 @@ public class AlarmReportService {
 
                 {
                     try {
-                        logo = Image.getInstance(new ClassPathResource("static/images/logo1.png").getInputStream().readAllBytes());
+                        logo = PageDecorations.logo();
                         logo.scaleToFit(90, 40);
                     } catch (IOException e) {
                         log.error("Logo load error", e);
@@ -376,10 +360,15 @@ public class AlarmReportService {
             document.add(footerTable);
 
             document.close();
+            reportMetrics.recordStage(ReportKind.ALARM, null, ReportMetrics.STAGE_RENDER, System.nanoTime() - renderStart);
+            reportMetrics.recordRows(ReportKind.ALARM, null, logs.size());
+            reportMetrics.recordPdfBytes(ReportKind.ALARM, null, out.size());
+            reportMetrics.recordSuccess(ReportKind.ALARM, null, System.nanoTime() - start);
             auditReportService.logAlarmReportGeneration(username);
             return out.toByteArray();
 
         } catch (Exception e) {
+            reportMetrics.recordFailure(ReportKind.ALARM, null, System.nanoTime() - start, e);
             log.error("PDF generation failed", e);
             return null;
         }
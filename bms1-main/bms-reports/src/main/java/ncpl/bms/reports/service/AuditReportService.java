@@ -8,6 +8,7 @@ import com.lowagie.text.pdf.PdfPCell;
 import com.lowagie.text.pdf.PdfPTable;
 import com.lowagie.text.pdf.PdfWriter;
 import lombok.extern.slf4j.Slf4j;
+import ncpl.bms.reports.model.dto.ReportKind;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -16,7 +17,6 @@ import org.springframework.jdbc.core.JdbcTemplate;
 import com.lowagie.text.pdf.PdfPageEventHelper;
 import com.lowagie.text.pdf.PdfTemplate;
 import com.lowagie.text.pdf.PdfContentByte;
-import org.springframework.core.io.ClassPathResource;
 import java.awt.*;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
@@ -34,6 +34,9 @@ public class AuditReportService {
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
+    @Autowired
+    private ReportMetrics reportMetrics;
+
     private static final Logger logger = LoggerFactory.getLogger(AuditReportService.class);
 
     // Log user login action
@@ -178,6 +181,7 @@ public class AuditReportService {
         return jdbcTemplate.queryForList(sql);
     }
     public ByteArrayInputStream generateAuditReportPdf(String fromDateStr, String toDateStr) {
+        long start = System.nanoTime();
         Document document = new Document(PageSize.A4);
         ByteArrayOutputStream out = new ByteArrayOutputStream();
 
@@ -204,7 +208,7 @@ public class AuditReportService {
             logoCell.setBorder(Rectangle.NO_BORDER);
             logoCell.setHorizontalAlignment(Element.ALIGN_RIGHT);
             try {
-                Image logo = Image.getInstance(new ClassPathResource("static/images/logo1.png").getURL());
+                Image logo = PageDecorations.logo();
                 logo.scaleToFit(80, 50);
                 logo.setAlignment(Image.ALIGN_RIGHT);
                 logoCell.addElement(logo);
@@ -253,7 +257,10 @@ public class AuditReportService {
             long fromMillis = convertToMillis(fromDateStr);
             long toMillis = convertToMillis(toDateStr);
             String sql = "SELECT * FROM audit_report WHERE timestamp BETWEEN ? AND ? ORDER BY timestamp DESC";
+            long queryStart = System.nanoTime();
             List<Map<String, Object>> auditLogs = jdbcTemplate.queryForList(sql, fromMillis, toMillis);
+            long queryNanos = System.nanoTime() - queryStart;
+            reportMetrics.recordStage(ReportKind.AUDIT, null, ReportMetrics.STAGE_QUERY, queryNanos);
 
             for (Map<String, Object> log : auditLogs) {
                 Long timestampMillis = (Long) log.get("timestamp");
@@ -277,8 +284,13 @@ public class AuditReportService {
 
             document.add(table);
             document.close();
+            reportMetrics.recordStage(ReportKind.AUDIT, null, ReportMetrics.STAGE_RENDER, System.nanoTime() - start - queryNanos);
+            reportMetrics.recordRows(ReportKind.AUDIT, null, auditLogs.size());
+            reportMetrics.recordPdfBytes(ReportKind.AUDIT, null, out.size());
+            reportMetrics.recordSuccess(ReportKind.AUDIT, null, System.nanoTime() - start);
 
         } catch (Exception e) {
+            reportMetrics.recordFailure(ReportKind.AUDIT, null, System.nanoTime() - start, e);
             log.error("❌ Error generating audit report PDF", e);
         }
 
@@ -292,11 +304,7 @@ public class AuditReportService {
         @Override
         public void onOpenDocument(PdfWriter writer, Document document) {
             totalPageTemplate = writer.getDirectContent().createTemplate(50, 50);
-            try {
-                baseFont = BaseFont.createFont(BaseFont.HELVETICA, BaseFont.WINANSI, BaseFont.NOT_EMBEDDED);
-            } catch (Exception e) {
-                throw new RuntimeException(e);
-            }
+            baseFont = PageDecorations.helvetica();
         }
 
         @Override
@@ -8,8 +8,8 @@ package ncpl.bms.reports.service;
     import com.lowagie.text.pdf.*;
         import lombok.extern.slf4j.Slf4j;
     import ncpl.bms.reports.model.dto.AuditLogDTO;
+    import ncpl.bms.reports.model.dto.ReportKind;
     import org.springframework.beans.factory.annotation.Autowired;
-    import org.springframework.core.io.ClassPathResource;
     import org.springframework.jdbc.core.JdbcTemplate;
     import org.springframework.stereotype.Service;
 
@@ -27,6 +27,12 @@ public class BeckmanAuditReportService {
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
+    @Autowired
+    private ReportMetrics reportMetrics;
+
+    @Autowired
+    private ReportBlobService reportBlobService;
+
     public List<AuditLogDTO> fetchAuditLogs(String startDate, String endDate) {
         String query = "SELECT [TIMESTAMP], [OPERATION], [TARGET], [SLOTNAME], [OLDVALUE], [VALUE], [USERNAME] " +
                 "FROM[EMS_NEW_AUDITHISTORY] " +
@@ -48,7 +54,7 @@ public class BeckmanAuditReportService {
     public void saveAuditReportPdf(byte[] pdfBytes, String startDate, String endDate) {
         try {
             if (pdfBytes != null && pdfBytes.length > 0) {
-                String sql = "INSERT INTO StoredAuditReport (report_name, generated_on, report_data) VALUES (?, ?, ?)";
+                String sql = "INSERT INTO StoredAuditReport (report_name, generated_on, blob_ref) VALUES (?, ?, ?)";
 
                 SimpleDateFormat inputFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
                 SimpleDateFormat outputFormat = new SimpleDateFormat("dd-MMM-yyyy");
@@ -59,20 +65,22 @@ public class BeckmanAuditReportService {
                 String reportName = "Audit_Report_" + formattedStart + "_to_" + formattedEnd + ".pdf";
                 Date now = new Date();
 
-                jdbcTemplate.update(sql, reportName, new java.sql.Timestamp(now.getTime()), pdfBytes);
+                long storeStart = System.nanoTime();
+                jdbcTemplate.update(sql, reportName, new java.sql.Timestamp(now.getTime()), reportBlobService.store(pdfBytes));
+                reportMetrics.recordStage(ReportKind.AUDIT, null, ReportMetrics.STAGE_STORE, System.nanoTime() - storeStart);
                 log.info("Audit report saved with name: {}", reportName);
             } else {
                 log.warn("Generated PDF is empty. Not saving to DB.");
             }
         } catch (Exception e) {
+            reportMetrics.countFailure(ReportKind.AUDIT, null, e);
             log.error("Error saving audit report to DB", e);
         }
     }
 
     public byte[] getStoredAuditReportById(int reportId) {
         try {
-            String sql = "SELECT report_data FROM StoredAuditReport WHERE id = ?";
-            return jdbcTemplate.queryForObject(sql, new Object[]{reportId}, byte[].class);
+            return reportBlobService.load(ReportBlobService.StoredTable.AUDIT, reportId);
         } catch (Exception e) {
             log.error("Error fetching stored audit report from database, ID: " + reportId, e);
             return null;
@@ -99,12 +107,21 @@ public class BeckmanAuditReportService {
     }
 
     public byte[] generateAuditReportPdf(String startDate, String endDate) {
-        List<AuditLogDTO> logs = fetchAuditLogs(startDate, endDate);
+        long start = System.nanoTime();
+        List<AuditLogDTO> logs;
+        try {
+            logs = fetchAuditLogs(startDate, endDate);
+            reportMetrics.recordStage(ReportKind.AUDIT, null, ReportMetrics.STAGE_QUERY, System.nanoTime() - start);
 
-        if (logs.isEmpty()) {
-            throw new RuntimeException("No audit logs found between the selected dates.");
+            if (logs.isEmpty()) {
+                throw new RuntimeException("No audit logs found between the selected dates.");
+            }
+        } catch (RuntimeException e) {
+            reportMetrics.recordFailure(ReportKind.AUDIT, null, System.nanoTime() - start, e);
+            throw e;
         }
 
+        long renderStart = System.nanoTime();
         try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
             Document document = new Document(PageSize.A4.rotate(), 36, 36, 160, 50);
             PdfWriter writer = PdfWriter.getInstance(document, out);
@@ -133,7 +150,7 @@ public class BeckmanAuditReportService {
 
                         if (logo == null) {
                             try {
-                                logo = Image.getInstance(new ClassPathResource("static/images/logo1.png").getURL());
+                                logo = PageDecorations.logo();
                                 logo.scaleToFit(100, 50);
                             } catch (IOException e) {
                                 log.error("Error loading logo image", e);
@@ -250,9 +267,14 @@ public class BeckmanAuditReportService {
 
             document.add(table);
             document.close();
+            reportMetrics.recordStage(ReportKind.AUDIT, null, ReportMetrics.STAGE_RENDER, System.nanoTime() - renderStart);
+            reportMetrics.recordRows(ReportKind.AUDIT, null, logs.size());
+            reportMetrics.recordPdfBytes(ReportKind.AUDIT, null, out.size());
+            reportMetrics.recordSuccess(ReportKind.AUDIT, null, System.nanoTime() - start);
             return out.toByteArray();
 
         } catch (Exception e) {
+            reportMetrics.recordFailure(ReportKind.AUDIT, null, System.nanoTime() - start, e);
             log.error("Error generating audit report PDF", e);
             return null;
         }
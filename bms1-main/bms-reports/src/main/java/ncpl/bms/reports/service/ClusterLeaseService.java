@@ -0,0 +1,88 @@
+package ncpl.bms.reports.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+/**
+ * Time-limited leases in SQL Server that let several bms-reports nodes share their scheduled work. A lease
+ * is held by one node until it expires; the holder renews it by acquiring it again, and once a node stops
+ * (or crashes) any other node can take it over. Lease times are the database's clock, so node clocks do
+ * not need to agree.
+ */
+@Service
+@Slf4j
+public class ClusterLeaseService implements CommandLineRunner {
+
+    static final String LEASE_TABLE = "scheduler_lease";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${report.cluster.node-id:}")
+    private String nodeId;
+
+    @Value("${report.cluster.lease-seconds:300}")
+    private int leaseSeconds;
+
+    @Override
+    public void run(String... args) {
+        jdbcTemplate.execute("IF NOT EXISTS (SELECT * FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_NAME = '" + LEASE_TABLE + "') " +
+                "CREATE TABLE " + LEASE_TABLE + " (" +
+                "name VARCHAR(100) NOT NULL PRIMARY KEY, " +
+                "owner VARCHAR(100) NOT NULL, " +
+                "lease_until DATETIME2 NOT NULL, " +
+                "acquired_at DATETIME2 NOT NULL);");
+        log.info("Scheduled work is shared with other nodes as {}", getNodeId());
+    }
+
+    /**
+     * Takes or renews the named lease for this node
+     *
+     * @return false while another node holds it
+     */
+    public boolean tryAcquire(String name) {
+        String node = getNodeId();
+        int renewed = jdbcTemplate.update("UPDATE " + LEASE_TABLE + " SET lease_until = DATEADD(SECOND, ?, SYSUTCDATETIME()), " +
+                        "acquired_at = CASE WHEN owner = ? THEN acquired_at ELSE SYSUTCDATETIME() END, owner = ? " +
+                        "WHERE name = ? AND (owner = ? OR lease_until < SYSUTCDATETIME())",
+                leaseSeconds, node, node, name, node);
+        if (renewed > 0) {
+            return true;
+        }
+        try {
+            jdbcTemplate.update("INSERT INTO " + LEASE_TABLE + " (name, owner, lease_until, acquired_at) " +
+                    "VALUES (?, ?, DATEADD(SECOND, ?, SYSUTCDATETIME()), SYSUTCDATETIME())", name, node, leaseSeconds);
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    /**
+     * This node's name in the lease tables: report.cluster.node-id, or process id and host name
+     */
+    public String getNodeId() {
+        if (nodeId == null || nodeId.isBlank()) {
+            String host;
+            try {
+                host = InetAddress.getLocalHost().getHostName();
+            } catch (UnknownHostException e) {
+                host = "unknown";
+            }
+            nodeId = ProcessHandle.current().pid() + "@" + host;
+        }
+        return nodeId;
+    }
+
+    public int getLeaseSeconds() {
+        return leaseSeconds;
+    }
+}
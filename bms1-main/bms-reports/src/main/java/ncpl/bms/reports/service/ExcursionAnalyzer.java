@@ -0,0 +1,161 @@
+package ncpl.bms.reports.service;
+
+import ncpl.bms.reports.model.dto.ParameterSpec;
+import ncpl.bms.reports.model.dto.ReportFrame;
+import ncpl.bms.reports.model.dto.TemplateMetadata;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Finds out-of-range values in report frames in a single pass per column. For the frame last passed to
+ * {@link #accept(ReportFrame)} every cell is marked {@link #ABOVE}, {@link #BELOW} or {@link #IN_RANGE}, which the
+ * table renderers use to colour cells; across all frames it counts excursions (runs of consecutive
+ * out-of-range values on the same side), out-of-range samples and time out of range for the summary table.
+ * Each row is a bucket of {@code bucketMillis}, so time out of range is the number of out-of-range buckets
+ * times the bucket length. Columns without a spec or without limits are never out of range.
+ */
+public class ExcursionAnalyzer {
+
+    public static final byte IN_RANGE = 0;
+    public static final byte ABOVE = 1;
+    public static final byte BELOW = -1;
+
+    private final List<String> columns;
+    private final ParameterSpec[] specs;
+    private final double[] from;
+    private final double[] to;
+    private final long bucketMillis;
+
+    private byte[][] flags;
+    private final byte[] lastFlag;
+    private final int[] excursions;
+    private final int[] above;
+    private final int[] below;
+    private final int[] samples;
+
+    /**
+     * @param specs spec per column, in column order; null entries are allowed
+     */
+    public ExcursionAnalyzer(List<String> columns, ParameterSpec[] specs, long bucketMillis) {
+        this.columns = columns;
+        this.specs = specs;
+        this.bucketMillis = bucketMillis;
+        int size = columns.size();
+        this.from = new double[size];
+        this.to = new double[size];
+        for (int i = 0; i < size; i++) {
+            from[i] = specs[i] == null ? Double.NEGATIVE_INFINITY : specs[i].getFrom();
+            to[i] = specs[i] == null ? Double.POSITIVE_INFINITY : specs[i].getTo();
+        }
+        this.flags = new byte[size][0];
+        this.lastFlag = new byte[size];
+        this.excursions = new int[size];
+        this.above = new int[size];
+        this.below = new int[size];
+        this.samples = new int[size];
+    }
+
+    /**
+     * Analyzer for report columns (trend tables) using the template's parameter limits and the 10 minute report buckets
+     */
+    public static ExcursionAnalyzer forTemplate(List<String> columns, TemplateMetadata metadata) {
+        ParameterSpec[] specs = new ParameterSpec[columns.size()];
+        for (int i = 0; i < specs.length; i++) {
+            specs[i] = metadata.getSpec(columns.get(i));
+        }
+        return new ExcursionAnalyzer(columns, specs, TimeUnit.MINUTES.toMillis(TrendRollupService.BUCKET_MINUTES));
+    }
+
+    /**
+     * Marks the cells of this frame and adds them to the totals; the frame must have this analyzer's columns
+     * and follow the previous frame in time.
+     */
+    public void accept(ReportFrame frame) {
+        int rows = frame.size();
+        for (int column = 0; column < columns.size(); column++) {
+            if (flags[column].length < rows) {
+                flags[column] = new byte[Math.max(rows, flags[column].length * 2)];
+            }
+            byte[] columnFlags = flags[column];
+            double[] values = frame.getColumnValues(column);
+            double lo = from[column];
+            double hi = to[column];
+            byte previous = lastFlag[column];
+            int columnAbove = 0;
+            int columnBelow = 0;
+            int columnSamples = 0;
+            int columnExcursions = 0;
+
+            for (int row = 0; row < rows; row++) {
+                double value = values[row];
+                // NaN (no data) compares false on both sides, so it is in range and ends an excursion
+                byte flag = value > hi ? ABOVE : value < lo ? BELOW : IN_RANGE;
+                columnFlags[row] = flag;
+                if (!Double.isNaN(value)) columnSamples++;
+                if (flag == ABOVE) columnAbove++;
+                else if (flag == BELOW) columnBelow++;
+                if (flag != IN_RANGE && flag != previous) columnExcursions++;
+                previous = flag;
+            }
+
+            lastFlag[column] = previous;
+            above[column] += columnAbove;
+            below[column] += columnBelow;
+            samples[column] += columnSamples;
+            excursions[column] += columnExcursions;
+        }
+    }
+
+    /**
+     * Flag of a cell in the frame last passed to {@link #accept(ReportFrame)}
+     */
+    public byte getFlag(int column, int row) {
+        return flags[column][row];
+    }
+
+    public List<String> getColumns() {
+        return columns;
+    }
+
+    public ParameterSpec getSpec(int column) {
+        return specs[column];
+    }
+
+    /**
+     * True when the column has at least one limit, i.e. can be out of range
+     */
+    public boolean hasLimits(int column) {
+        return from[column] != Double.NEGATIVE_INFINITY || to[column] != Double.POSITIVE_INFINITY;
+    }
+
+    public int getExcursionCount(int column) {
+        return excursions[column];
+    }
+
+    public int getAboveCount(int column) {
+        return above[column];
+    }
+
+    public int getBelowCount(int column) {
+        return below[column];
+    }
+
+    /**
+     * Values present in the column, i.e. excluding buckets without data
+     */
+    public int getSampleCount(int column) {
+        return samples[column];
+    }
+
+    public long getTimeOutOfRangeMillis(int column) {
+        return (long) (above[column] + below[column]) * bucketMillis;
+    }
+
+    /**
+     * Share of the present values that were out of range, 0 to 100
+     */
+    public double getPercentOutOfRange(int column) {
+        return samples[column] == 0 ? 0 : (above[column] + below[column]) * 100.0 / samples[column];
+    }
+}
@@ -0,0 +1,61 @@
+package ncpl.bms.reports.service;
+
+import com.lowagie.text.Font;
+import com.lowagie.text.FontFactory;
+import com.lowagie.text.Image;
+import com.lowagie.text.pdf.BaseFont;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Resources shared by the page headers and footers of every report, created once per JVM: the logo is read
+ * from the classpath once, fonts and the footer BaseFont are built once. Page events build their header
+ * and footer from these once per report and only place them on each page.
+ */
+public final class PageDecorations {
+
+    public static final Font TITLE = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 13);
+    public static final Font ADDRESS = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 16);
+    public static final Font CONTENT = FontFactory.getFont(FontFactory.HELVETICA, 11);
+
+    private static final String LOGO = "static/images/logo1.png";
+
+    private static volatile byte[] logoBytes;
+    private static volatile BaseFont helvetica;
+
+    private PageDecorations() {
+    }
+
+    /**
+     * A new logo image for one document. Images are not shared between documents as they are scaled and
+     * aligned per use; within a document the same instance is reused so the PDF holds the logo only once.
+     */
+    public static Image logo() throws IOException {
+        byte[] bytes = logoBytes;
+        if (bytes == null) {
+            try (InputStream in = new ClassPathResource(LOGO).getInputStream()) {
+                bytes = in.readAllBytes();
+            }
+            logoBytes = bytes;
+        }
+        return Image.getInstance(bytes);
+    }
+
+    /**
+     * Helvetica for text written straight to the page content, as the footers do
+     */
+    public static BaseFont helvetica() {
+        BaseFont font = helvetica;
+        if (font == null) {
+            try {
+                font = BaseFont.createFont(BaseFont.HELVETICA, BaseFont.WINANSI, BaseFont.NOT_EMBEDDED);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+            helvetica = font;
+        }
+        return font;
+    }
+}
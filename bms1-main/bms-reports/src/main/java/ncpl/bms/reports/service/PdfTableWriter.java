@@ -0,0 +1,169 @@
+package ncpl.bms.reports.service;
+
+import com.lowagie.text.*;
+import com.lowagie.text.pdf.PdfPCell;
+import com.lowagie.text.pdf.PdfPTable;
+import ncpl.bms.reports.model.dto.ParameterSpec;
+import ncpl.bms.reports.model.dto.ReportFrame;
+
+import java.awt.Color;
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * Renders report frames into a document as a paged table. The table is added and replaced every
+ * {@code rowsPerPage} rows, so only one page worth of cells is alive at a time however long the report is.
+ */
+public class PdfTableWriter implements ReportDataService.ReportFrameHandler {
+
+    private final Document document;
+    private final List<String> headerLabels;
+    private final int rowsPerPage;
+    private final ExcursionAnalyzer highlight;
+    private PdfPTable table;
+    private int rowCount = 0;
+
+    public PdfTableWriter(Document document, List<String> headerLabels, int rowsPerPage) {
+        this(document, headerLabels, rowsPerPage, null);
+    }
+
+    /**
+     * @param highlight when not null, out-of-range cells are coloured from its flags, so every frame must be
+     *                  passed to the analyzer before it is passed to this writer
+     */
+    public PdfTableWriter(Document document, List<String> headerLabels, int rowsPerPage, ExcursionAnalyzer highlight) {
+        this.document = document;
+        this.headerLabels = headerLabels;
+        this.rowsPerPage = rowsPerPage;
+        this.highlight = highlight;
+        this.table = newPageTable();
+    }
+
+    private PdfPTable newPageTable() {
+        PdfPTable pageTable = new PdfPTable(headerLabels.size());
+        pageTable.setWidthPercentage(100f);
+        pageTable.setSpacingBefore(5);
+        addTableHeader(headerLabels, pageTable);
+        return pageTable;
+    }
+
+    @Override
+    public void processFrame(ReportFrame frame) {
+        for (int row = 0; row < frame.size(); row++) {
+            addCell(new Timestamp(frame.getTimestamp(row)).toString(), null);
+            for (int column = 0; column < frame.getColumnCount(); column++) {
+                addCell(frame.isNull(column, row) ? "null" : Double.toString(frame.getValue(column, row)),
+                        highlight == null ? null : excursionColor(highlight.getFlag(column, row)));
+            }
+            rowCount++;
+            if (rowCount % rowsPerPage == 0) {
+                document.add(table);
+                document.newPage();
+                table = newPageTable();
+            }
+        }
+    }
+
+    private void addCell(String valueStr, Color background) {
+        PdfPCell valueCell = new PdfPCell(new Phrase(valueStr));
+        valueCell.setHorizontalAlignment(Element.ALIGN_CENTER);
+        if (background != null) {
+            valueCell.setBackgroundColor(background);
+        }
+        table.addCell(valueCell);
+    }
+
+    /**
+     * Red above range, blue below range, null in range
+     */
+    public static Color excursionColor(byte flag) {
+        if (flag == ExcursionAnalyzer.ABOVE) return Color.RED;
+        if (flag == ExcursionAnalyzer.BELOW) return Color.BLUE;
+        return null;
+    }
+
+    /**
+     * Adds the rows that did not fill a whole page
+     */
+    public void finish() {
+        if (rowCount % rowsPerPage != 0) {
+            document.add(table);
+            document.newPage();
+        }
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Adds the excursion summary (one row per column that has limits) after the report table;
+     * nothing is added when no column has limits.
+     *
+     * @param labels display label per analysed column, in column order
+     */
+    public static void addExcursionSummary(Document document, ExcursionAnalyzer analysis, List<String> labels) {
+        List<String> summaryHeader = List.of("Parameter", "Range", "Excursions", "Above Range", "Below Range",
+                "Time Out of Range", "% Out of Range");
+        PdfPTable summaryTable = new PdfPTable(summaryHeader.size());
+        summaryTable.setWidthPercentage(100f);
+        summaryTable.setSpacingBefore(5);
+        addTableHeader(summaryHeader, summaryTable);
+
+        boolean anyLimits = false;
+        Font font = FontFactory.getFont(FontFactory.HELVETICA, 9);
+        for (int column = 0; column < analysis.getColumns().size(); column++) {
+            if (!analysis.hasLimits(column)) continue;
+            anyLimits = true;
+
+            ParameterSpec spec = analysis.getSpec(column);
+            long minutes = analysis.getTimeOutOfRangeMillis(column) / 60_000;
+            addSummaryCell(summaryTable, labels.get(column), font);
+            addSummaryCell(summaryTable, formatRange(spec), font);
+            addSummaryCell(summaryTable, Integer.toString(analysis.getExcursionCount(column)), font);
+            addSummaryCell(summaryTable, Integer.toString(analysis.getAboveCount(column)), font);
+            addSummaryCell(summaryTable, Integer.toString(analysis.getBelowCount(column)), font);
+            addSummaryCell(summaryTable, String.format("%dh %02dm", minutes / 60, minutes % 60), font);
+            addSummaryCell(summaryTable, String.format("%.1f", analysis.getPercentOutOfRange(column)), font);
+        }
+        if (!anyLimits) {
+            return;
+        }
+
+        Paragraph title = new Paragraph("Excursion Summary", FontFactory.getFont(FontFactory.HELVETICA_BOLD, 11));
+        title.setSpacingBefore(10);
+        document.add(title);
+        document.add(summaryTable);
+    }
+
+    private static String formatRange(ParameterSpec spec) {
+        if (spec.hasRange()) {
+            return String.format("%.0f - %.0f", spec.getFrom(), spec.getTo());
+        }
+        return spec.getFrom() != Double.NEGATIVE_INFINITY
+                ? String.format("Min %.0f", spec.getFrom())
+                : String.format("Max %.0f", spec.getTo());
+    }
+
+    private static void addSummaryCell(PdfPTable table, String text, Font font) {
+        PdfPCell cell = new PdfPCell(new Phrase(text, font));
+        cell.setHorizontalAlignment(Element.ALIGN_CENTER);
+        cell.setVerticalAlignment(Element.ALIGN_MIDDLE);
+        table.addCell(cell);
+    }
+
+    public static void addTableHeader(List<String> headerLabels, PdfPTable table) {
+        Font font = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 10, Color.WHITE); // White header text
+        PdfPCell cell = new PdfPCell();
+        cell.setBackgroundColor(new Color(0, 123, 128));
+        cell.setPadding(5);
+        cell.setHorizontalAlignment(Element.ALIGN_CENTER);
+
+        for (String label : headerLabels) {
+            cell.setPhrase(new Phrase(label, font));
+            table.addCell(cell);
+        }
+
+        table.setHeaderRows(1);
+    }
+}
@@ -0,0 +1,362 @@
+package ncpl.bms.reports.service;
+
+import lombok.extern.slf4j.Slf4j;
+import ncpl.bms.reports.model.dto.StoredPdf;
+import ncpl.bms.reports.service.blob.BlobStore;
+import ncpl.bms.reports.service.blob.DatabaseBlobStore;
+import ncpl.bms.reports.service.blob.FileSystemBlobStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps report PDFs out of the report tables. Report rows hold a blob_ref such as "fs:3a7bd3e2..." pointing
+ * into the configured {@link BlobStore}; rows written before blob_ref existed still carry the PDF inline and
+ * are moved to the store in the background at startup.
+ * <p>
+ * Review and approval stamps never replace blob_ref; {@link ReportStampService} keeps the stamped copy as a
+ * blob of its own (stamped_ref). Blobs that no blob_ref or stamped_ref points to any more, such as superseded
+ * stamped copies and the PDFs of deleted reports, are deleted by {@link #collectGarbage()}.
+ * <p>
+ * With report.cluster.enabled every node must reach the same blobs: the file system store is only used with
+ * an explicit report.blob-store.dir, which must be a directory shared by all nodes, and otherwise PDFs are
+ * stored in the database.
+ */
+@Service
+@Slf4j
+public class ReportBlobService implements CommandLineRunner {
+
+    /**
+     * Tables that store report PDFs, with the column that held the PDF inline
+     */
+    public enum StoredTable {
+        MANUAL("stored_reports", "pdf_data", "name"),
+        DAILY("stored_reports_daily", "pdf_data", "name"),
+        WEEKLY("stored_reports_weekly", "pdf_data", "name"),
+        MONTHLY("stored_reports_monthly", "pdf_data", "name"),
+        ALARM("StoredAlarmReport", "report_data", "report_name"),
+        AUDIT("StoredAuditReport", "report_data", "report_name");
+
+        private final String table;
+        private final String dataColumn;
+        private final String nameColumn;
+
+        StoredTable(String table, String dataColumn, String nameColumn) {
+            this.table = table;
+            this.dataColumn = dataColumn;
+            this.nameColumn = nameColumn;
+        }
+
+        public String table() {
+            return table;
+        }
+
+        public String dataColumn() {
+            return dataColumn;
+        }
+
+        public String nameColumn() {
+            return nameColumn;
+        }
+    }
+
+    @FunctionalInterface
+    private interface Content {
+        InputStream open() throws IOException;
+    }
+
+    private static final int MIGRATION_BATCH = 20;
+
+    private static final String MIGRATION_LEASE = "report-blob-migration";
+
+    // Columns of the report tables that point into the blob store
+    private static final List<String> REF_COLUMNS = List.of("blob_ref", "stamped_ref");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private FileSystemBlobStore fileSystemBlobStore;
+
+    @Autowired
+    private DatabaseBlobStore databaseBlobStore;
+
+    @Autowired
+    private ClusterLeaseService clusterLeaseService;
+
+    /**
+     * "filesystem" or "database"; the database store is also used when the file system store cannot write
+     */
+    @Value("${report.blob-store.type:filesystem}")
+    private String storeType;
+
+    @Value("${report.blob-store.dir:}")
+    private String blobDir;
+
+    @Value("${report.blob-store.migrate-inline:true}")
+    private boolean migrateInline;
+
+    /**
+     * How old an unreferenced blob must be before it is deleted, so a PDF stored just before its report row
+     * is written is not taken
+     */
+    @Value("${report.blob-store.gc-grace-hours:24}")
+    private long gcGraceHours;
+
+    @Value("${report.cluster.enabled:false}")
+    private boolean clustered;
+
+    @Override
+    public void run(String... args) {
+        for (StoredTable stored : StoredTable.values()) {
+            String table = stored.table();
+            jdbcTemplate.execute("IF OBJECT_ID('" + table + "') IS NOT NULL AND COL_LENGTH('" + table + "', 'blob_ref') IS NULL " +
+                    "ALTER TABLE " + table + " ADD blob_ref VARCHAR(80) NULL;");
+            // Rows that reference a blob carry no inline PDF
+            jdbcTemplate.execute("IF EXISTS (SELECT * FROM INFORMATION_SCHEMA.COLUMNS WHERE TABLE_NAME = '" + table + "' " +
+                    "AND COLUMN_NAME = '" + stored.dataColumn() + "' AND IS_NULLABLE = 'NO') " +
+                    "ALTER TABLE " + table + " ALTER COLUMN " + stored.dataColumn() + " VARBINARY(MAX) NULL;");
+        }
+
+        if (clustered && !"database".equalsIgnoreCase(storeType) && blobDir.isBlank()) {
+            log.warn("report.cluster.enabled without a shared report.blob-store.dir, storing report PDFs in the database");
+            storeType = "database";
+        }
+    }
+
+    // After every runner, so the lease table exists
+    @EventListener(ApplicationReadyEvent.class)
+    public void startMigration() {
+        if (migrateInline) {
+            Thread migration = new Thread(this::migrateInlineBlobs, "report-blob-migration");
+            migration.setDaemon(true);
+            migration.start();
+        }
+    }
+
+    /**
+     * @return reference to store in the report row's blob_ref
+     */
+    public String store(byte[] pdf) {
+        return store(() -> new ByteArrayInputStream(pdf));
+    }
+
+    public String store(Path pdfFile) {
+        return store(() -> Files.newInputStream(pdfFile));
+    }
+
+    private String store(Content content) {
+        BlobStore primary = "database".equalsIgnoreCase(storeType) ? databaseBlobStore : fileSystemBlobStore;
+        try (InputStream in = content.open()) {
+            return primary.scheme() + ":" + primary.put(in);
+        } catch (IOException e) {
+            if (primary == databaseBlobStore) {
+                throw new RuntimeException("Could not store report PDF", e);
+            }
+            log.warn("Could not write report PDF to the blob directory, storing it in the database", e);
+        }
+        try (InputStream in = content.open()) {
+            return databaseBlobStore.scheme() + ":" + databaseBlobStore.put(in);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not store report PDF", e);
+        }
+    }
+
+    /**
+     * PDF of a report row: the referenced blob, or the inline PDF of a row that has not been migrated yet
+     */
+    public byte[] resolve(String blobRef, byte[] inlinePdf) {
+        if (blobRef == null) {
+            return inlinePdf;
+        }
+        try (InputStream in = open(blobRef)) {
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new RuntimeException("Could not read report PDF " + blobRef, e);
+        }
+    }
+
+    /**
+     * PDF of the given row, or null when there is no such row
+     */
+    public byte[] load(StoredTable stored, Object id) {
+        List<byte[]> pdfs = jdbcTemplate.query("SELECT blob_ref, " + stored.dataColumn() + " FROM " + stored.table() + " WHERE id = ?",
+                (rs, rowNum) -> resolve(rs.getString("blob_ref"), rs.getBytes(stored.dataColumn())), id);
+        return pdfs.isEmpty() ? null : pdfs.get(0);
+    }
+
+    /**
+     * PDF of the given row for a download response, or null when there is no such row or it has no PDF.
+     * Stored blobs are streamed from the store; only rows that still carry the PDF inline are read into memory.
+     */
+    public StoredPdf download(StoredTable stored, Object id) throws IOException {
+        // The inline column is only read for rows that have not been moved to the store
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList("SELECT " + stored.nameColumn() + " AS name, blob_ref, " +
+                "CASE WHEN blob_ref IS NULL THEN " + stored.dataColumn() + " END AS inline_pdf " +
+                "FROM " + stored.table() + " WHERE id = ?", id);
+        if (rows.isEmpty()) {
+            return null;
+        }
+        Map<String, Object> row = rows.get(0);
+        String name = (String) row.get("name");
+        String blobRef = (String) row.get("blob_ref");
+        if (blobRef == null) {
+            byte[] inlinePdf = (byte[]) row.get("inline_pdf");
+            if (inlinePdf == null) {
+                return null;
+            }
+            return new StoredPdf(name, new ByteArrayResource(inlinePdf), HexFormat.of().formatHex(BlobStore.sha256().digest(inlinePdf)));
+        }
+        return download(name, blobRef);
+    }
+
+    /**
+     * blob_ref of the given row, moving a PDF that is still inline to the store first; null when there is
+     * no such row or it has no PDF
+     */
+    public String ensureBlob(StoredTable stored, Object id) {
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList("SELECT blob_ref, " +
+                "CASE WHEN blob_ref IS NULL THEN " + stored.dataColumn() + " END AS inline_pdf " +
+                "FROM " + stored.table() + " WHERE id = ?", id);
+        if (rows.isEmpty()) {
+            return null;
+        }
+        String blobRef = (String) rows.get(0).get("blob_ref");
+        byte[] inlinePdf = (byte[]) rows.get(0).get("inline_pdf");
+        if (blobRef != null || inlinePdf == null) {
+            return blobRef;
+        }
+        moveInline(stored, id, inlinePdf);
+        return jdbcTemplate.queryForObject("SELECT blob_ref FROM " + stored.table() + " WHERE id = ?", String.class, id);
+    }
+
+    public InputStream open(String blobRef) throws IOException {
+        return storeFor(blobRef).open(key(blobRef));
+    }
+
+    public long size(String blobRef) throws IOException {
+        return storeFor(blobRef).size(key(blobRef));
+    }
+
+    private BlobStore storeFor(String blobRef) throws IOException {
+        if (blobRef.startsWith(FileSystemBlobStore.SCHEME + ":")) return fileSystemBlobStore;
+        if (blobRef.startsWith(DatabaseBlobStore.SCHEME + ":")) return databaseBlobStore;
+        throw new IOException("Unknown blob reference: " + blobRef);
+    }
+
+    /**
+     * The referenced blob as a download, named as given and tagged with its content hash
+     */
+    public StoredPdf download(String name, String blobRef) throws IOException {
+        return new StoredPdf(name, storeFor(blobRef).resource(key(blobRef)), key(blobRef));
+    }
+
+    private static String key(String blobRef) {
+        return blobRef.substring(blobRef.indexOf(':') + 1);
+    }
+
+    /**
+     * Deletes the blobs of both stores that no report row points to and that were last stored more than
+     * report.blob-store.gc-grace-hours ago
+     *
+     * @return number of blobs deleted
+     */
+    public int collectGarbage() {
+        Instant cutoff = Instant.now().minus(gcGraceHours, ChronoUnit.HOURS);
+        Set<String> referenced = referencedBlobs();
+        int deleted = 0;
+        for (BlobStore store : List.of(fileSystemBlobStore, databaseBlobStore)) {
+            try {
+                for (String key : store.keysStoredBefore(cutoff)) {
+                    if (!referenced.contains(store.scheme() + ":" + key)) {
+                        store.delete(key);
+                        deleted++;
+                    }
+                }
+            } catch (Exception e) {
+                log.error("Deleting unreferenced report PDFs from the {} blob store failed", store.scheme(), e);
+            }
+        }
+        if (deleted > 0) {
+            log.info("Deleted {} report PDFs no report points to any more", deleted);
+        }
+        return deleted;
+    }
+
+    private Set<String> referencedBlobs() {
+        Set<String> referenced = new HashSet<>();
+        for (StoredTable stored : StoredTable.values()) {
+            for (String column : REF_COLUMNS) {
+                if (jdbcTemplate.queryForObject("SELECT COL_LENGTH(?, ?)", Integer.class, stored.table(), column) != null) {
+                    referenced.addAll(jdbcTemplate.queryForList("SELECT DISTINCT " + column + " FROM " + stored.table() +
+                            " WHERE " + column + " IS NOT NULL", String.class));
+                }
+            }
+        }
+        return referenced;
+    }
+
+    // One node migrates at a time; it renews the lease per batch and stops if another node took it over
+    private void migrateInlineBlobs() {
+        for (StoredTable stored : StoredTable.values()) {
+            if (!clusterLeaseService.tryAcquire(MIGRATION_LEASE)) {
+                log.info("Inline PDFs are being moved to the blob store by another node");
+                return;
+            }
+            try {
+                int moved = migrateInlineBlobs(stored);
+                if (moved > 0) {
+                    log.info("Moved {} inline PDFs from {} to the blob store", moved, stored.table());
+                }
+            } catch (Exception e) {
+                log.error("Moving inline PDFs from {} to the blob store failed", stored.table(), e);
+            }
+        }
+    }
+
+    private int migrateInlineBlobs(StoredTable stored) {
+        String table = stored.table();
+        String dataColumn = stored.dataColumn();
+        if (jdbcTemplate.queryForObject("SELECT OBJECT_ID(?)", Integer.class, table) == null) {
+            return 0;
+        }
+        int moved = 0;
+        while (clusterLeaseService.tryAcquire(MIGRATION_LEASE)) {
+            List<Object> ids = jdbcTemplate.queryForList("SELECT TOP (?) id FROM " + table +
+                    " WHERE blob_ref IS NULL AND " + dataColumn + " IS NOT NULL ORDER BY id", Object.class, MIGRATION_BATCH);
+            if (ids.isEmpty()) {
+                return moved;
+            }
+            for (Object id : ids) {
+                byte[] pdf = jdbcTemplate.queryForObject("SELECT " + dataColumn + " FROM " + table + " WHERE id = ?", byte[].class, id);
+                moved += moveInline(stored, id, pdf);
+            }
+        }
+        return moved;
+    }
+
+    private int moveInline(StoredTable stored, Object id, byte[] pdf) {
+        String blobRef = store(pdf);
+        // A row moved in the meantime (migration or a download) already points to its blob
+        return jdbcTemplate.update("UPDATE " + stored.table() + " SET blob_ref = ?, " + stored.dataColumn() + " = NULL " +
+                "WHERE id = ? AND blob_ref IS NULL", blobRef, id);
+    }
+}
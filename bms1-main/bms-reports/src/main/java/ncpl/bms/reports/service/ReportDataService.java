@@ -1,21 +1,35 @@
 package ncpl.bms.reports.service;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import ncpl.bms.reports.db.info.TableInfoService;
-import ncpl.bms.reports.model.dao.ReportTemplate;
+import ncpl.bms.reports.model.dto.ReportFrame;
+import ncpl.bms.reports.util.DecimalRounding;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ColumnMapRowMapper;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.ResultSetExtractor;
 import org.springframework.stereotype.Service;
 import org.springframework.cache.annotation.Cacheable;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @Slf4j
 public class ReportDataService {
 
+    private static final int STREAM_FETCH_SIZE = 500;
+    private static final int FRAME_CHUNK_ROWS = 1024;
+    private static final int STREAM_BATCH_ROWS = 1000;
+
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
@@ -23,7 +37,10 @@ public class ReportDataService {
     private TableInfoService tableInfoService;
 
     @Autowired
-    private ReportTemplateService templateService;
+    private TemplateMetadataService templateMetadataService;
+
+    @Autowired
+    private TrendRollupService trendRollupService;
 
     /**
      * APPROACH 1: Direct Query with Dynamic JOIN (Recommended)
@@ -35,8 +52,7 @@ public class ReportDataService {
 
         log.info("Generating report data directly from source tables for template: {}", templateId);
 
-        ReportTemplate template = templateService.getById(templateId);
-        List<String> requiredTables = getRequiredTables(template);
+        List<String> requiredTables = getRequiredTables(templateId);
 
         // Use Union approach which is more reliable for SQL Server
         List<Map<String, Object>> result = queryWithUnionAndPivot(requiredTables, fromDate, toDate);
@@ -55,8 +71,7 @@ public class ReportDataService {
 
         log.info("Generating report data using simple approach for template: {}", templateId);
 
-        ReportTemplate template = templateService.getById(templateId);
-        List<String> requiredTables = getRequiredTables(template);
+        List<String> requiredTables = getRequiredTables(templateId);
 
         // Get all unique 10-minute intervals
         Set<Timestamp> allIntervals = new TreeSet<>();
@@ -175,8 +190,7 @@ public class ReportDataService {
 
     @Cacheable(value = "reportData", key = "#templateId + '_' + #fromDate + '_' + #toDate")
     public List<Map<String, Object>> getReportDataFromView(Long templateId, String fromDate, String toDate) {
-        ReportTemplate template = templateService.getById(templateId);
-        List<String> requiredColumns = getRequiredColumns(template);
+        List<String> requiredColumns = getRequiredTables(templateId);
 
         StringBuilder sql = new StringBuilder("SELECT timestamp");
         for (String column : requiredColumns) {
@@ -197,8 +211,7 @@ public class ReportDataService {
         Timestamp fromDate = new Timestamp(Long.parseLong(fromDateMillis));
         Timestamp toDate = new Timestamp(Long.parseLong(toDateMillis));
 
-        ReportTemplate template = templateService.getById(templateId);
-        List<String> requiredTables = getRequiredTables(template);
+        List<String> requiredTables = getRequiredTables(templateId);
 
         List<Map<String, Object>> result = queryWithUnionAndPivot(requiredTables, fromDate, toDate);
         return roundValuesInResult(result);
@@ -209,6 +222,114 @@ public class ReportDataService {
             return Collections.emptyList();
         }
 
+        PivotQuery query = buildPivotQuery(tables, fromDate, toDate);
+        List<Map<String, Object>> result = jdbcTemplate.queryForList(query.getSql(), query.getParams());
+        return roundValuesInResult(result);
+    }
+
+    /**
+     * Streams the pivoted report rows through a single forward-only cursor, one row at a time, so callers
+     * can render arbitrarily long ranges without holding the whole result in memory.
+     */
+    public void streamReportData(Long templateId, String fromDateMillis, String toDateMillis, ReportRowHandler handler) {
+        streamReportFrames(templateId, fromDateMillis, toDateMillis, FRAME_CHUNK_ROWS, frame -> {
+            for (int row = 0; row < frame.size(); row++) {
+                handler.processRow(frame.getRow(row));
+            }
+        });
+    }
+
+    /**
+     * Loads the whole pivoted report into a single columnar frame.
+     */
+    public ReportFrame loadReportFrame(Long templateId, String fromDateMillis, String toDateMillis) {
+        List<String> columns = getReportColumns(templateId);
+        ReportFrame result = new ReportFrame(columns, FRAME_CHUNK_ROWS);
+        streamReportFrames(templateId, fromDateMillis, toDateMillis, FRAME_CHUNK_ROWS, chunk -> {
+            for (int row = 0; row < chunk.size(); row++) {
+                int target = result.addRow(chunk.getTimestamp(row));
+                for (int column = 0; column < chunk.getColumnCount(); column++) {
+                    result.setValue(column, target, chunk.getValue(column, row));
+                }
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Reads the pivoted report through a single forward-only cursor into a columnar frame of at most
+     * {@code chunkRows} rows. The handler is called for every full chunk and once more for the remainder;
+     * the same frame is cleared and refilled between calls, so it must not be kept by the handler.
+     */
+    public void streamReportFrames(Long templateId, String fromDateMillis, String toDateMillis, int chunkRows, ReportFrameHandler handler) {
+        streamReportFrames(templateId, fromDateMillis, toDateMillis, chunkRows, new ReportJobProgress(), handler);
+    }
+
+    /**
+     * Same, cancelling the running query when the given progress is cancelled
+     */
+    public void streamReportFrames(Long templateId, String fromDateMillis, String toDateMillis, int chunkRows,
+                                   ReportJobProgress progress, ReportFrameHandler handler) {
+        Timestamp fromDate = new Timestamp(Long.parseLong(fromDateMillis));
+        Timestamp toDate = new Timestamp(Long.parseLong(toDateMillis));
+
+        List<String> requiredTables = getRequiredTables(templateId);
+        if (requiredTables.isEmpty()) {
+            return;
+        }
+
+        ReportFrame frame = new ReportFrame(requiredTables, chunkRows);
+        PivotQuery query = buildPivotQuery(requiredTables, fromDate, toDate);
+        PreparedStatementCreator statement = forwardOnly(query);
+        try {
+            jdbcTemplate.query(connection -> {
+                PreparedStatement ps = statement.createPreparedStatement(connection);
+                progress.onCancel(() -> cancelQuietly(ps));
+                return ps;
+            }, (ResultSetExtractor<Void>) rs -> {
+                ReportFrameReader reader = new ReportFrameReader(rs, frame);
+                while (rs.next()) {
+                    reader.readRow(rs);
+                    if (frame.size() == chunkRows) {
+                        handler.processFrame(frame);
+                        frame.clear();
+                    }
+                }
+                if (!frame.isEmpty()) {
+                    handler.processFrame(frame);
+                    frame.clear();
+                }
+                if (reader.getSkippedRows() > 0) {
+                    log.warn("Skipped {} rows without a timestamp in the report of template {}", reader.getSkippedRows(), templateId);
+                }
+                return null;
+            });
+        } finally {
+            progress.onCancel(null);
+        }
+    }
+
+    private static void cancelQuietly(PreparedStatement ps) {
+        try {
+            ps.cancel();
+        } catch (SQLException e) {
+            log.warn("Failed to cancel report query: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Column names of the pivoted report, in result order (the timestamp column is not included)
+     */
+    public List<String> getReportColumns(Long templateId) {
+        return getRequiredTables(templateId);
+    }
+
+    private PivotQuery buildPivotQuery(List<String> tables, Timestamp fromDate, Timestamp toDate) {
+        TrendRollupService.RollupWindow window = trendRollupService.planWindow(tables, fromDate, toDate);
+        if (window != null) {
+            return buildRollupPivotQuery(tables, fromDate, toDate, window);
+        }
+
         StringBuilder sql = new StringBuilder();
         sql.append("SELECT timestamp");
 
@@ -239,40 +360,95 @@ public class ReportDataService {
             params[i * 2 + 1] = toDate;
         }
 
-        List<Map<String, Object>> result = jdbcTemplate.queryForList(sql.toString(), params);
-        return roundValuesInResult(result);
+        return new PivotQuery(sql.toString(), params);
     }
 
+    /**
+     * Same pivot as the raw query, but complete buckets inside the rollup window come from
+     * ems_trend_rollup (bucket max) and only the partial edges of the range are read from the raw tables.
+     */
+    private PivotQuery buildRollupPivotQuery(List<String> tables, Timestamp fromDate, Timestamp toDate,
+                                             TrendRollupService.RollupWindow window) {
+        StringBuilder sql = new StringBuilder();
+        List<Object> params = new ArrayList<>();
+        sql.append("SELECT timestamp");
 
-    public void generateReportDataStream(Long templateId, String fromDateMillis, String toDateMillis,
-                                         ReportDataCallback callback) {
-        Timestamp fromDate = new Timestamp(Long.parseLong(fromDateMillis));
-        Timestamp toDate = new Timestamp(Long.parseLong(toDateMillis));
+        for (String table : tables) {
+            sql.append(", ROUND(MAX(CASE WHEN source_table = '").append(table).append("' THEN value END), 1) as ").append(table);
+        }
+
+        sql.append(" FROM (");
+        sql.append("SELECT point_table as source_table, bucket_start as timestamp, max_val as value FROM ")
+                .append(TrendRollupService.ROLLUP_TABLE).append(" WHERE point_table IN (");
+        for (int i = 0; i < tables.size(); i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+            params.add(tables.get(i));
+        }
+        sql.append(") AND bucket_start >= ? AND bucket_start < ?");
+        params.add(window.getLo());
+        params.add(window.getHi());
+
+        for (String table : tables) {
+            sql.append(" UNION ALL ");
+            sql.append("SELECT '").append(table).append("' as source_table, ");
+            sql.append("DATEADD(MINUTE, (DATEDIFF(MINUTE, '1900-01-01', timestamp) / 10) * 10, '1900-01-01') as timestamp, ");
+            sql.append("value FROM ").append(table);
+            sql.append(" WHERE (timestamp >= ? AND timestamp < ?) OR (timestamp >= ? AND timestamp <= ?)");
+            params.add(fromDate);
+            params.add(window.getLo());
+            params.add(window.getHi());
+            params.add(toDate);
+        }
 
-        ReportTemplate template = templateService.getById(templateId);
-        List<String> requiredTables = getRequiredTables(template);
+        sql.append(") unified_data GROUP BY timestamp ORDER BY timestamp");
 
-        // Process in batches to avoid memory issues
-        int batchSize = 1000;
-        int offset = 0;
+        return new PivotQuery(sql.toString(), params.toArray());
+    }
 
-        while (true) {
-            List<Map<String, Object>> batch = queryBatch(requiredTables, fromDate, toDate, offset, batchSize);
-            if (batch.isEmpty()) break;
 
-            // Round values in each batch
-            List<Map<String, Object>> roundedBatch = roundValuesInResult(batch);
-            callback.processBatch(roundedBatch);
-            offset += batchSize;
+    /**
+     * Delivers the joined report rows to the callback in batches of {@value #STREAM_BATCH_ROWS}. All batches
+     * come from one forward-only cursor, so the join runs once instead of once per page.
+     */
+    public void generateReportDataStream(Long templateId, String fromDateMillis, String toDateMillis,
+                                         ReportDataCallback callback) {
+        try (Stream<Map<String, Object>> rows = streamReportDataRows(templateId, fromDateMillis, toDateMillis)) {
+            List<Map<String, Object>> batch = new ArrayList<>(STREAM_BATCH_ROWS);
+            Iterator<Map<String, Object>> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                batch.add(iterator.next());
+                if (batch.size() == STREAM_BATCH_ROWS) {
+                    callback.processBatch(batch);
+                    batch = new ArrayList<>(STREAM_BATCH_ROWS);
+                }
+            }
+            if (!batch.isEmpty()) {
+                callback.processBatch(batch);
+            }
         }
     }
 
-    private List<Map<String, Object>> queryBatch(List<String> tables, Timestamp fromDate, Timestamp toDate,
-                                                 int offset, int limit) {
-        if (tables.isEmpty()) {
-            return Collections.emptyList();
+    /**
+     * The rows of {@link #generateReportDataStream} as a lazily read Stream over a forward-only cursor, with
+     * values rounded as in the batch API. The stream holds a database connection until it is closed, so
+     * callers must use it in a try-with-resources block.
+     */
+    public Stream<Map<String, Object>> streamReportDataRows(Long templateId, String fromDateMillis, String toDateMillis) {
+        Timestamp fromDate = new Timestamp(Long.parseLong(fromDateMillis));
+        Timestamp toDate = new Timestamp(Long.parseLong(toDateMillis));
+
+        List<String> requiredTables = getRequiredTables(templateId);
+        if (requiredTables.isEmpty()) {
+            return Stream.empty();
         }
 
+        ColumnMapRowMapper rowMapper = new ColumnMapRowMapper();
+        PivotQuery query = new PivotQuery(buildJoinQuery(requiredTables), new Object[]{fromDate, toDate});
+        return jdbcTemplate.queryForStream(forwardOnly(query),
+                (rs, rowNum) -> roundValuesInRow(rowMapper.mapRow(rs, rowNum)));
+    }
+
+    private String buildJoinQuery(List<String> tables) {
         StringBuilder sql = new StringBuilder();
         sql.append("SELECT ");
         sql.append("DATEADD(MINUTE, (DATEDIFF(MINUTE, '1900-01-01', t1.timestamp) / 10) * 10, '1900-01-01') as normalized_timestamp");
@@ -295,19 +471,43 @@ public class ReportDataService {
         sql.append(" WHERE t1.timestamp BETWEEN ? AND ?");
         sql.append(" GROUP BY DATEADD(MINUTE, (DATEDIFF(MINUTE, '1900-01-01', t1.timestamp) / 10) * 10, '1900-01-01')");
         sql.append(" ORDER BY normalized_timestamp");
-        sql.append(" OFFSET ").append(offset).append(" ROWS FETCH NEXT ").append(limit).append(" ROWS ONLY");
 
-        return jdbcTemplate.queryForList(sql.toString(), fromDate, toDate);
+        return sql.toString();
+    }
+
+    /**
+     * Forward-only, read-only statement with a bounded fetch size, so the driver streams the result
+     * instead of buffering it
+     */
+    private static PreparedStatementCreator forwardOnly(PivotQuery query) {
+        return connection -> {
+            PreparedStatement ps = connection.prepareStatement(query.getSql(), ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(STREAM_FETCH_SIZE);
+            Object[] params = query.getParams();
+            for (int i = 0; i < params.length; i++) {
+                ps.setObject(i + 1, params[i]);
+            }
+            return ps;
+        };
     }
 
     /**
      * Optimized statistics calculation - direct from source tables
      */
     public Map<String, Map<String, Double>> calculateStatistics(Long templateId, String fromDate, String toDate) {
-        ReportTemplate template = templateService.getById(templateId);
-        List<String> requiredTables = getRequiredTables(template);
+        List<String> requiredTables = getRequiredTables(templateId);
         Map<String, Map<String, Double>> statistics = new LinkedHashMap<>();
 
+        Timestamp from = Timestamp.valueOf(fromDate);
+        Timestamp to = Timestamp.valueOf(toDate);
+        TrendRollupService.RollupWindow window = trendRollupService.planWindow(requiredTables, from, to);
+        if (window != null) {
+            for (String table : requiredTables) {
+                statistics.put(table, calculateRollupStatistics(table, from, to, window));
+            }
+            return statistics;
+        }
+
         for (String table : requiredTables) {
             String sql = "SELECT ROUND(MAX(value), 1) as max_val, ROUND(MIN(value), 1) as min_val, ROUND(AVG(value), 1) as avg_val " +
                     "FROM " + table + " WHERE timestamp BETWEEN ? AND ?";
@@ -325,6 +525,46 @@ public class ReportDataService {
         return statistics;
     }
 
+    /**
+     * Combines the rollup aggregates of the complete buckets with a raw aggregate over the range edges
+     */
+    private Map<String, Double> calculateRollupStatistics(String table, Timestamp from, Timestamp to,
+                                                          TrendRollupService.RollupWindow window) {
+        Map<String, Object> rollup = jdbcTemplate.queryForMap(
+                "SELECT MAX(max_val) as max_val, MIN(min_val) as min_val, SUM(sum_val) as sum_val, SUM(sample_count) as sample_count " +
+                        "FROM " + TrendRollupService.ROLLUP_TABLE + " WHERE point_table = ? AND bucket_start >= ? AND bucket_start < ?",
+                table, window.getLo(), window.getHi());
+
+        Map<String, Object> edges = jdbcTemplate.queryForMap(
+                "SELECT MAX(value) as max_val, MIN(value) as min_val, SUM(CAST(value AS FLOAT)) as sum_val, COUNT(value) as sample_count " +
+                        "FROM " + table + " WHERE (timestamp >= ? AND timestamp < ?) OR (timestamp >= ? AND timestamp <= ?)",
+                from, window.getLo(), window.getHi(), to);
+
+        Double max = combine(rollup.get("max_val"), edges.get("max_val"), true);
+        Double min = combine(rollup.get("min_val"), edges.get("min_val"), false);
+        long count = toLong(rollup.get("sample_count")) + toLong(edges.get("sample_count"));
+        double sum = (rollup.get("sum_val") instanceof Number ? ((Number) rollup.get("sum_val")).doubleValue() : 0)
+                + (edges.get("sum_val") instanceof Number ? ((Number) edges.get("sum_val")).doubleValue() : 0);
+
+        Map<String, Double> statMap = new HashMap<>();
+        statMap.put("max", convertToDouble(max));
+        statMap.put("min", convertToDouble(min));
+        statMap.put("avg", count > 0 ? convertToDouble(sum / count) : null);
+        return statMap;
+    }
+
+    private Double combine(Object a, Object b, boolean max) {
+        if (!(a instanceof Number)) return b instanceof Number ? ((Number) b).doubleValue() : null;
+        if (!(b instanceof Number)) return ((Number) a).doubleValue();
+        double x = ((Number) a).doubleValue();
+        double y = ((Number) b).doubleValue();
+        return max ? Math.max(x, y) : Math.min(x, y);
+    }
+
+    private long toLong(Object value) {
+        return value instanceof Number ? ((Number) value).longValue() : 0L;
+    }
+
     // Helper methods for rounding
 
     /**
@@ -337,10 +577,7 @@ public class ReportDataService {
         }
 
         if (value instanceof Number) {
-            Number numValue = (Number) value;
-            BigDecimal bd = new BigDecimal(numValue.toString());
-            bd = bd.setScale(1, RoundingMode.HALF_UP);
-            return bd.doubleValue();
+            return DecimalRounding.roundHalfUp((Number) value, 1);
         }
 
         // If it's a string that represents a number, try to parse and round it
@@ -367,45 +604,35 @@ public class ReportDataService {
         }
 
         for (Map<String, Object> row : result) {
-            for (Map.Entry<String, Object> entry : row.entrySet()) {
-                String key = entry.getKey();
-                Object value = entry.getValue();
-
-                // Skip timestamp columns
-                if (key.toLowerCase().contains("timestamp") || key.toLowerCase().contains("time")) {
-                    continue;
-                }
-
-                // Round numeric values
-                Object roundedValue = roundValue(value);
-                row.put(key, roundedValue);
-            }
+            roundValuesInRow(row);
         }
 
         return result;
     }
 
-    // Other helper methods
-    private List<String> getRequiredTables(ReportTemplate template) {
-        return template.getParameters().stream()
-                .map(this::removeSuffix)
-                .distinct()
-                .collect(Collectors.toList());
-    }
+    private Map<String, Object> roundValuesInRow(Map<String, Object> row) {
+        for (Map.Entry<String, Object> entry : row.entrySet()) {
+            String key = entry.getKey();
+            Object value = entry.getValue();
+
+            // Skip timestamp columns
+            if (key.toLowerCase().contains("timestamp") || key.toLowerCase().contains("time")) {
+                continue;
+            }
 
-    private List<String> getRequiredColumns(ReportTemplate template) {
-        return template.getParameters().stream()
-                .map(this::removeSuffix)
-                .distinct()
-                .collect(Collectors.toList());
+            // Round numeric values
+            Object roundedValue = roundValue(value);
+            row.put(key, roundedValue);
+        }
+        return row;
     }
 
-    private String removeSuffix(String columnName) {
-        String base = columnName;
-        if (base.contains("_From_")) base = base.substring(0, base.indexOf("_From_"));
-        if (base.contains("_To_")) base = base.substring(0, base.indexOf("_To_"));
-        if (base.contains("_Unit_")) base = base.substring(0, base.indexOf("_Unit_"));
-        return base;
+    // Other helper methods
+    /**
+     * Distinct trend tables of the template, from the parameter specs parsed when the template was cached
+     */
+    private List<String> getRequiredTables(Long templateId) {
+        return templateMetadataService.get(templateId).getBaseTables();
     }
 
     private Integer convertToInteger(Object value) {
@@ -417,10 +644,7 @@ public class ReportDataService {
 
     private Double convertToDouble(Object value) {
         if (value instanceof Number) {
-            Number numValue = (Number) value;
-            BigDecimal bd = new BigDecimal(numValue.toString());
-            bd = bd.setScale(1, RoundingMode.HALF_UP);
-            return bd.doubleValue();
+            return DecimalRounding.roundHalfUp((Number) value, 1);
         }
         return null;
     }
@@ -429,4 +653,21 @@ public class ReportDataService {
     public interface ReportDataCallback {
         void processBatch(List<Map<String, Object>> batch);
     }
+
+    // Row-at-a-time callback used by streamReportData
+    public interface ReportRowHandler {
+        void processRow(Map<String, Object> row);
+    }
+
+    // Chunk callback used by streamReportFrames
+    public interface ReportFrameHandler {
+        void processFrame(ReportFrame frame);
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    private static class PivotQuery {
+        private final String sql;
+        private final Object[] params;
+    }
 }
\ No newline at end of file
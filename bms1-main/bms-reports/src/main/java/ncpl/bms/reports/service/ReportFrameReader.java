@@ -0,0 +1,75 @@
+package ncpl.bms.reports.service;
+
+import ncpl.bms.reports.model.dto.ReportFrame;
+import ncpl.bms.reports.util.DecimalRounding;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+
+/**
+ * Appends rows of the pivot query (timestamp first, then one column per frame column) to a {@link ReportFrame}.
+ * Column SQL types are looked up once, and values are read as primitives and rounded to one decimal
+ * exactly like {@code ReportDataService.roundValue}; NULL becomes NaN. Rows without a timestamp cannot be
+ * placed in the report and are skipped.
+ */
+public final class ReportFrameReader {
+
+    private final ReportFrame frame;
+    private final int[] columnTypes;
+    private long skippedRows;
+
+    public ReportFrameReader(ResultSet rs, ReportFrame frame) throws SQLException {
+        this.frame = frame;
+        this.columnTypes = new int[frame.getColumnCount()];
+        ResultSetMetaData metaData = rs.getMetaData();
+        for (int i = 0; i < columnTypes.length; i++) {
+            columnTypes[i] = metaData.getColumnType(i + 2);
+        }
+    }
+
+    /**
+     * Reads the current row of the ResultSet into the frame and returns its row index, or -1 when the row
+     * has no timestamp and was skipped
+     */
+    public int readRow(ResultSet rs) throws SQLException {
+        Timestamp timestamp = rs.getTimestamp(1);
+        if (timestamp == null) {
+            skippedRows++;
+            return -1;
+        }
+        int row = frame.addRow(timestamp.getTime());
+        for (int i = 0; i < columnTypes.length; i++) {
+            frame.setValue(i, row, readRoundedValue(rs, i + 2, columnTypes[i]));
+        }
+        return row;
+    }
+
+    public long getSkippedRows() {
+        return skippedRows;
+    }
+
+    /**
+     * REAL and DECIMAL columns are rounded from their own decimal representation, as roundValue would.
+     */
+    private static double readRoundedValue(ResultSet rs, int index, int sqlType) throws SQLException {
+        switch (sqlType) {
+            case Types.REAL: {
+                float value = rs.getFloat(index);
+                return rs.wasNull() ? Double.NaN : DecimalRounding.roundHalfUp(value, 1);
+            }
+            case Types.DECIMAL:
+            case Types.NUMERIC: {
+                BigDecimal value = rs.getBigDecimal(index);
+                return value == null ? Double.NaN : DecimalRounding.roundHalfUp(value, 1);
+            }
+            default: {
+                double value = rs.getDouble(index);
+                return rs.wasNull() ? Double.NaN : DecimalRounding.roundHalfUp(value, 1);
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package ncpl.bms.reports.service;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Live progress of one report run. The rendering thread updates it while the status endpoint reads it,
+ * so every field is safe to read from any thread.
+ */
+public class ReportJobProgress {
+
+    private final AtomicLong rowsFetched = new AtomicLong();
+    private final AtomicInteger pagesRendered = new AtomicInteger();
+    private volatile Long reportId;
+
+    private enum Stage { RUNNING, STORING, CANCELLED }
+
+    private final AtomicReference<Stage> stage = new AtomicReference<>(Stage.RUNNING);
+    private volatile Runnable cancelAction;
+
+    public void addRowsFetched(long rows) {
+        rowsFetched.addAndGet(rows);
+    }
+
+    public void pageRendered() {
+        pagesRendered.incrementAndGet();
+    }
+
+    public long getRowsFetched() {
+        return rowsFetched.get();
+    }
+
+    public int getPagesRendered() {
+        return pagesRendered.get();
+    }
+
+    /**
+     * Id of the stored report, once it has been saved
+     */
+    public Long getReportId() {
+        return reportId;
+    }
+
+    public void setReportId(Long reportId) {
+        this.reportId = reportId;
+    }
+
+    /**
+     * Cancels the run unless it has already started storing its report, and runs the registered cancel action
+     *
+     * @return whether the run is cancelled
+     */
+    public boolean cancel() {
+        if (!stage.compareAndSet(Stage.RUNNING, Stage.CANCELLED)) {
+            return stage.get() == Stage.CANCELLED;
+        }
+        Runnable action = cancelAction;
+        if (action != null) {
+            action.run();
+        }
+        return true;
+    }
+
+    public boolean isCancelled() {
+        return stage.get() == Stage.CANCELLED;
+    }
+
+    /**
+     * Throws if the run has been cancelled or its thread interrupted
+     */
+    public void checkCancelled() {
+        if (isCancelled() || Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("Report run was cancelled");
+        }
+    }
+
+    /**
+     * Registers what stops the work in progress, e.g. cancelling the running query; null clears it.
+     * Runs it right away when the run is already cancelled.
+     */
+    public void onCancel(Runnable action) {
+        cancelAction = action;
+        if (action != null && isCancelled()) {
+            action.run();
+        }
+    }
+
+    /**
+     * Claims the right to store the report; once claimed the run can no longer be cancelled
+     *
+     * @return false when the run has been cancelled and its report must be discarded
+     */
+    public boolean startStoring() {
+        return stage.compareAndSet(Stage.RUNNING, Stage.STORING);
+    }
+}
@@ -0,0 +1,310 @@
+package ncpl.bms.reports.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import ncpl.bms.reports.exception.ReportQueueFullException;
+import ncpl.bms.reports.model.dto.ReportJobDTO;
+import ncpl.bms.reports.model.dto.ReportKind;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs report generation jobs on a bounded worker pool. Every job gets a row in report_generation_job
+ * that tracks its status, and a job that runs longer than the configured timeout is cancelled.
+ * When the queue is full a submitted job is rejected with {@link ReportQueueFullException}, so no report
+ * ever runs on the submitting (servlet or scheduler) thread.
+ */
+@Service
+@Slf4j
+public class ReportJobService implements CommandLineRunner {
+
+    public static final String JOB_TABLE = "report_generation_job";
+
+    public enum Status { QUEUED, RUNNING, SUCCEEDED, FAILED, TIMED_OUT, ABANDONED, REJECTED }
+
+    @FunctionalInterface
+    public interface ReportTask {
+        void run() throws Exception;
+    }
+
+    /**
+     * Task that reports rows fetched, pages rendered and the stored report id while it runs
+     */
+    @FunctionalInterface
+    public interface ProgressReportTask {
+        void run(ReportJobProgress progress) throws Exception;
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${report.jobs.pool-size:4}")
+    private int poolSize;
+
+    @Value("${report.jobs.queue-capacity:200}")
+    private int queueCapacity;
+
+    @Value("${report.jobs.timeout-minutes:30}")
+    private long timeoutMinutes;
+
+    private ThreadPoolExecutor executor;
+    private ScheduledExecutorService watchdog;
+
+    // Progress of queued and running jobs; persisted to the job row when the job finishes
+    private final Map<Long, ReportJobProgress> activeProgress = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "report-job-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        watchdog = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "report-job-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdown();
+        // Jobs that never started are not run on the way down; their rows must not stay QUEUED
+        List<Runnable> abandoned = new ArrayList<>();
+        executor.getQueue().drainTo(abandoned);
+        for (Runnable job : abandoned) {
+            if (job instanceof ReportJob reportJob) {
+                try {
+                    markFinished(reportJob.jobId, Status.ABANDONED, "Abandoned at shutdown before it started");
+                } catch (Exception e) {
+                    log.error("Failed to mark report job {} abandoned", reportJob.jobId, e);
+                }
+            }
+        }
+        watchdog.shutdownNow();
+    }
+
+    @Override
+    public void run(String... args) {
+        jdbcTemplate.execute("IF NOT EXISTS (SELECT * FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_NAME = '" + JOB_TABLE + "') BEGIN " +
+                "CREATE TABLE " + JOB_TABLE + " (" +
+                "id BIGINT NOT NULL IDENTITY(1,1) PRIMARY KEY, " +
+                "kind VARCHAR(20) NOT NULL, " +
+                "template_id BIGINT NULL, " +
+                "from_date VARCHAR(20) NULL, " +
+                "to_date VARCHAR(20) NULL, " +
+                "requested_by VARCHAR(100) NULL, " +
+                "status VARCHAR(20) NOT NULL, " +
+                "submitted_at DATETIME2 NOT NULL, " +
+                "started_at DATETIME2 NULL, " +
+                "finished_at DATETIME2 NULL, " +
+                "error_message NVARCHAR(1000) NULL); " +
+                "CREATE INDEX ix_" + JOB_TABLE + "_status ON " + JOB_TABLE + " (status, submitted_at); END;");
+        addColumnIfMissing("rows_fetched", "BIGINT NULL");
+        addColumnIfMissing("pages_rendered", "INT NULL");
+        addColumnIfMissing("report_id", "BIGINT NULL");
+    }
+
+    private void addColumnIfMissing(String column, String definition) {
+        jdbcTemplate.execute("IF COL_LENGTH('" + JOB_TABLE + "', '" + column + "') IS NULL " +
+                "ALTER TABLE " + JOB_TABLE + " ADD " + column + " " + definition + ";");
+    }
+
+    /**
+     * Records the job and hands it to the worker pool.
+     *
+     * @return id of the report_generation_job row
+     */
+    public long submit(ReportKind kind, Long templateId, String fromDate, String toDate, String requestedBy, ReportTask task) {
+        return submit(kind, templateId, fromDate, toDate, requestedBy, progress -> task.run());
+    }
+
+    public long submit(ReportKind kind, Long templateId, String fromDate, String toDate, String requestedBy, ProgressReportTask task) {
+        long jobId = insertJob(kind, templateId, fromDate, toDate, requestedBy);
+        log.info("Queued {} report job {} for template {} ({} - {})", kind.tag(), jobId, templateId, fromDate, toDate);
+        ReportJobProgress progress = new ReportJobProgress();
+        activeProgress.put(jobId, progress);
+        try {
+            executor.execute(new ReportJob(jobId, progress, task));
+        } catch (RejectedExecutionException e) {
+            markFinished(jobId, Status.REJECTED, "Job queue is full");
+            throw new ReportQueueFullException("Report job queue is full (" + queueCapacity + " jobs waiting), try again later");
+        }
+        return jobId;
+    }
+
+    /**
+     * Jobs that can still be submitted right now without being rejected
+     */
+    public int getRemainingCapacity() {
+        return executor.getQueue().remainingCapacity() + Math.max(0, poolSize - executor.getActiveCount());
+    }
+
+    /**
+     * Job row, with live progress while the job is still queued or running
+     */
+    public ReportJobDTO getJob(long jobId) {
+        List<ReportJobDTO> jobs = jdbcTemplate.query("SELECT * FROM " + JOB_TABLE + " WHERE id = ?",
+                (rs, rowNum) -> mapJob(rs), jobId);
+        if (jobs.isEmpty()) {
+            return null;
+        }
+        ReportJobDTO job = jobs.get(0);
+        ReportJobProgress progress = activeProgress.get(jobId);
+        if (progress != null) {
+            job.setRowsFetched(progress.getRowsFetched());
+            job.setPagesRendered(progress.getPagesRendered());
+        }
+        return job;
+    }
+
+    public List<ReportJobDTO> getRecentJobs(int limit) {
+        return jdbcTemplate.query("SELECT TOP (?) * FROM " + JOB_TABLE + " ORDER BY id DESC",
+                (rs, rowNum) -> mapJob(rs), limit);
+    }
+
+    public int getQueuedCount() {
+        return executor.getQueue().size();
+    }
+
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    private long insertJob(ReportKind kind, Long templateId, String fromDate, String toDate, String requestedBy) {
+        String sql = "INSERT INTO " + JOB_TABLE + " (kind, template_id, from_date, to_date, requested_by, status, submitted_at) VALUES (?, ?, ?, ?, ?, ?, ?)";
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+            ps.setString(1, kind.name());
+            ps.setObject(2, templateId);
+            ps.setString(3, fromDate);
+            ps.setString(4, toDate);
+            ps.setString(5, requestedBy);
+            ps.setString(6, Status.QUEUED.name());
+            ps.setTimestamp(7, new Timestamp(System.currentTimeMillis()));
+            return ps;
+        }, keyHolder);
+        return keyHolder.getKey().longValue();
+    }
+
+    private void markRunning(long jobId) {
+        jdbcTemplate.update("UPDATE " + JOB_TABLE + " SET status = ?, started_at = ? WHERE id = ?",
+                Status.RUNNING.name(), new Timestamp(System.currentTimeMillis()), jobId);
+    }
+
+    private void markFinished(long jobId, Status status, String errorMessage) {
+        if (errorMessage != null && errorMessage.length() > 1000) {
+            errorMessage = errorMessage.substring(0, 1000);
+        }
+        ReportJobProgress progress = activeProgress.remove(jobId);
+        if (progress == null) {
+            progress = new ReportJobProgress();
+        }
+        jdbcTemplate.update("UPDATE " + JOB_TABLE + " SET status = ?, finished_at = ?, error_message = ?, " +
+                        "rows_fetched = ?, pages_rendered = ?, report_id = ? WHERE id = ?",
+                status.name(), new Timestamp(System.currentTimeMillis()), errorMessage,
+                progress.getRowsFetched(), progress.getPagesRendered(), progress.getReportId(), jobId);
+    }
+
+    private ReportJobDTO mapJob(ResultSet rs) throws java.sql.SQLException {
+        ReportJobDTO dto = new ReportJobDTO();
+        dto.setId(rs.getLong("id"));
+        dto.setKind(rs.getString("kind"));
+        long templateId = rs.getLong("template_id");
+        dto.setTemplateId(rs.wasNull() ? null : templateId);
+        dto.setFromDate(rs.getString("from_date"));
+        dto.setToDate(rs.getString("to_date"));
+        dto.setRequestedBy(rs.getString("requested_by"));
+        dto.setStatus(rs.getString("status"));
+        dto.setSubmittedAt(rs.getTimestamp("submitted_at"));
+        dto.setStartedAt(rs.getTimestamp("started_at"));
+        dto.setFinishedAt(rs.getTimestamp("finished_at"));
+        dto.setErrorMessage(rs.getString("error_message"));
+        long rowsFetched = rs.getLong("rows_fetched");
+        dto.setRowsFetched(rs.wasNull() ? null : rowsFetched);
+        int pagesRendered = rs.getInt("pages_rendered");
+        dto.setPagesRendered(rs.wasNull() ? null : pagesRendered);
+        long reportId = rs.getLong("report_id");
+        if (!rs.wasNull()) {
+            dto.setReportId(reportId);
+            dto.setReportUrl("/v1/reports/" + reportId);
+        }
+        return dto;
+    }
+
+    private class ReportJob extends FutureTask<Void> {
+
+        private final long jobId;
+        private final ReportJobProgress progress;
+
+        ReportJob(long jobId, ReportJobProgress progress, ProgressReportTask task) {
+            super(() -> {
+                task.run(progress);
+                return null;
+            });
+            this.jobId = jobId;
+            this.progress = progress;
+        }
+
+        @Override
+        public void run() {
+            try {
+                markRunning(jobId);
+            } catch (Exception e) {
+                // Run the job regardless; its row is brought up to date when it finishes
+                log.error("Failed to mark report job {} running", jobId, e);
+            }
+            ScheduledFuture<?> timeout = watchdog.schedule(() -> {
+                // Cancelling the progress stops the report query and keeps the report from being stored;
+                // a run that is already storing its report is left to finish
+                if (progress.cancel() && cancel(true)) {
+                    log.error("Report job {} exceeded {} minutes and was cancelled", jobId, timeoutMinutes);
+                    markFinished(jobId, Status.TIMED_OUT, "Timed out after " + timeoutMinutes + " minutes");
+                }
+            }, timeoutMinutes, TimeUnit.MINUTES);
+
+            try {
+                super.run();
+            } finally {
+                timeout.cancel(false);
+            }
+
+            if (isCancelled()) {
+                return;
+            }
+            try {
+                get();
+                markFinished(jobId, Status.SUCCEEDED, null);
+            } catch (ExecutionException e) {
+                log.error("Report job {} failed", jobId, e.getCause());
+                markFinished(jobId, Status.FAILED, String.valueOf(e.getCause().getMessage()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                log.error("Failed to record outcome of report job {}", jobId, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package ncpl.bms.reports.service;
+
+import ncpl.bms.reports.model.dto.ReportDTO;
+import ncpl.bms.reports.model.dto.ReportListFilter;
+import ncpl.bms.reports.model.dto.ReportPage;
+import ncpl.bms.reports.model.dto.StoredAlarmReportDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+/**
+ * Paged, filtered lists of stored reports and activity logs for the report screens. Pages are keyset
+ * paginated on the identity id, newest first: a page reads at most limit + 1 rows through the primary key or
+ * one of the filter indexes created at startup, however much history the site has.
+ * <p>
+ * generated_date and the activity log timestamp hold epoch millis as text; they are compared as text,
+ * which orders correctly for 13 digit millis, so the indexes on them can be used.
+ */
+@Service
+public class ReportListService implements CommandLineRunner {
+
+    public static final String LOG_TABLE = "log_report";
+    public static final String AUDIT_TABLE = "audit_report";
+
+    private static final String REPORT_COLUMNS = "id, name, from_date, to_date, generated_by, generated_date, is_approved, approved_by, " +
+            "approved_date, assigned_review, reviewed_by, review_date, is_approver_required, assigned_approver";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void run(String... args) {
+        for (ReportBlobService.StoredTable stored : reportTables()) {
+            String table = stored.table();
+            // stored_reports gets template_id from ReportSingleFlight; the scheduled tables get it here
+            jdbcTemplate.execute("IF OBJECT_ID('" + table + "') IS NOT NULL AND COL_LENGTH('" + table + "', 'template_id') IS NULL " +
+                    "ALTER TABLE " + table + " ADD template_id BIGINT NULL;");
+            createIndex(table, "generated_date");
+            createIndex(table, "generated_by");
+            createIndex(table, "template_id");
+        }
+        createIndex(ReportBlobService.StoredTable.ALARM.table(), "generated_on");
+        createIndex(ReportBlobService.StoredTable.ALARM.table(), "generated_by");
+        createIndex(LOG_TABLE, "timestamp");
+        createIndex(LOG_TABLE, "username");
+        createIndex(AUDIT_TABLE, "timestamp");
+        createIndex(AUDIT_TABLE, "username");
+    }
+
+    /**
+     * Index on (column, id) unless it exists or the column cannot be an index key (text, image or MAX types)
+     */
+    private void createIndex(String table, String column) {
+        String index = "ix_" + table + "_" + column;
+        jdbcTemplate.execute("IF NOT EXISTS (SELECT * FROM sys.indexes WHERE name = '" + index + "') " +
+                "AND EXISTS (SELECT * FROM INFORMATION_SCHEMA.COLUMNS WHERE TABLE_NAME = '" + table + "' AND COLUMN_NAME = '" + column + "' " +
+                "AND DATA_TYPE NOT IN ('text', 'ntext', 'image', 'xml') AND ISNULL(CHARACTER_MAXIMUM_LENGTH, 0) BETWEEN 0 AND 450) " +
+                "CREATE INDEX " + index + " ON " + table + " ([" + column + "], id);");
+    }
+
+    private static ReportBlobService.StoredTable[] reportTables() {
+        return new ReportBlobService.StoredTable[]{ReportBlobService.StoredTable.MANUAL, ReportBlobService.StoredTable.DAILY,
+                ReportBlobService.StoredTable.WEEKLY, ReportBlobService.StoredTable.MONTHLY};
+    }
+
+    /**
+     * Manual, daily, weekly or monthly reports, without their PDFs
+     */
+    public ReportPage<ReportDTO> listReports(ReportBlobService.StoredTable stored, ReportListFilter filter) {
+        Where where = new Where(filter);
+        where.between("generated_date", millisText(filter.getFrom()), millisText(filter.getTo()));
+        where.equal("template_id", filter.getTemplateId());
+        where.equal("is_approved", filter.getApproved());
+        where.equal("generated_by", filter.getGeneratedBy());
+
+        return page(REPORT_COLUMNS, stored.table(), where, filter, (rs, rowNum) -> new ReportDTO(
+                rs.getLong("id"),
+                rs.getString("name"),
+                rs.getString("from_date"),
+                rs.getString("to_date"),
+                null, // pdfData is served by the download endpoints
+                rs.getString("generated_by"),
+                rs.getString("generated_date"),
+                rs.getBoolean("is_approved"),
+                rs.getString("approved_by"),
+                rs.getString("approved_date"),
+                rs.getString("assigned_review"),
+                rs.getString("reviewed_by"),
+                rs.getString("review_date"),
+                rs.getBoolean("is_approver_required"),
+                rs.getString("assigned_approver")
+        ), ReportDTO::getId);
+    }
+
+    public ReportPage<StoredAlarmReportDTO> listAlarmReports(ReportListFilter filter) {
+        Where where = new Where(filter);
+        where.between("generated_on", timestamp(filter.getFrom()), timestamp(filter.getTo()));
+        where.equal("generated_by", filter.getGeneratedBy());
+
+        return page("id, report_name, generated_on, reviewed_by, review_date, generated_by",
+                ReportBlobService.StoredTable.ALARM.table(), where, filter, (rs, rowNum) -> {
+                    StoredAlarmReportDTO dto = new StoredAlarmReportDTO();
+                    dto.setId(rs.getInt("id"));
+                    dto.setReportName(rs.getString("report_name"));
+                    dto.setGeneratedOn(rs.getTimestamp("generated_on"));
+                    long reviewDateMillis = rs.getLong("review_date");
+                    dto.setReviewDate(reviewDateMillis > 0 ? new Timestamp(reviewDateMillis) : null);
+                    dto.setGeneratedBy(rs.getString("generated_by"));
+                    dto.setReviewedBy(rs.getString("reviewed_by"));
+                    return dto;
+                }, dto -> dto.getId());
+    }
+
+    /**
+     * Entries of log_report or audit_report; generatedBy filters on the user
+     */
+    public ReportPage<Map<String, Object>> listActivity(String table, ReportListFilter filter) {
+        Where where = new Where(filter);
+        where.between("[timestamp]", millisText(filter.getFrom()), millisText(filter.getTo()));
+        where.equal("username", filter.getGeneratedBy());
+
+        return page("id, [timestamp], username, action", table, where, filter,
+                (rs, rowNum) -> {
+                    Map<String, Object> row = new LinkedHashMap<>();
+                    row.put("id", rs.getLong("id"));
+                    row.put("timestamp", rs.getString("timestamp"));
+                    row.put("username", rs.getString("username"));
+                    row.put("action", rs.getString("action"));
+                    return row;
+                }, row -> (Long) row.get("id"));
+    }
+
+    private <T> ReportPage<T> page(String columns, String table, Where where, ReportListFilter filter,
+                                   RowMapper<T> rowMapper, ToLongFunction<T> idOf) {
+        int limit = filter.effectiveLimit();
+        List<Object> args = new ArrayList<>();
+        args.add(limit + 1);
+        args.addAll(where.args);
+        // One extra row tells whether there is a next page
+        List<T> rows = jdbcTemplate.query("SELECT TOP (?) " + columns + " FROM " + table + where.sql() + " ORDER BY id DESC",
+                rowMapper, args.toArray());
+
+        if (rows.size() <= limit) {
+            return new ReportPage<>(rows, null);
+        }
+        List<T> items = rows.subList(0, limit);
+        return new ReportPage<>(new ArrayList<>(items), idOf.applyAsLong(items.get(limit - 1)));
+    }
+
+    private static String millisText(Long millis) {
+        return millis == null ? null : millis.toString();
+    }
+
+    private static Timestamp timestamp(Long millis) {
+        return millis == null ? null : new Timestamp(millis);
+    }
+
+    private static final class Where {
+
+        private final StringBuilder sql = new StringBuilder();
+        private final List<Object> args = new ArrayList<>();
+
+        Where(ReportListFilter filter) {
+            if (filter.getCursor() != null) {
+                add("id < ?", filter.getCursor());
+            }
+        }
+
+        void equal(String column, Object value) {
+            if (value != null) {
+                add(column + " = ?", value);
+            }
+        }
+
+        void between(String column, Object from, Object to) {
+            if (from != null) {
+                add(column + " >= ?", from);
+            }
+            if (to != null) {
+                add(column + " <= ?", to);
+            }
+        }
+
+        private void add(String condition, Object value) {
+            sql.append(sql.length() == 0 ? " WHERE " : " AND ").append(condition);
+            args.add(value);
+        }
+
+        String sql() {
+            return sql.toString();
+        }
+    }
+}
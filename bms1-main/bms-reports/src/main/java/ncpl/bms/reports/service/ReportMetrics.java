@@ -0,0 +1,118 @@
+package ncpl.bms.reports.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import ncpl.bms.reports.model.dto.ReportKind;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micrometer meters for report generation, exposed under /actuator/metrics.
+ * Every meter is tagged with the report kind and template id ("none" for alarm and audit reports):
+ * <ul>
+ *     <li>report.generation.stage - time per stage (query, render, store)</li>
+ *     <li>report.generation - end to end time, tagged with outcome success/failure</li>
+ *     <li>report.rows - table rows per report</li>
+ *     <li>report.pdf.bytes - size of the rendered PDF</li>
+ *     <li>report.failures - failed generations, tagged with the exception type</li>
+ *     <li>report.deduplicated - exports answered with an identical running or recently stored report</li>
+ * </ul>
+ */
+@Component
+public class ReportMetrics {
+
+    public static final String STAGE_QUERY = "query";
+    public static final String STAGE_RENDER = "render";
+    public static final String STAGE_STORE = "store";
+
+    private static final String NO_TEMPLATE = "none";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    public void recordStage(ReportRenderContext context, String stage, long nanos) {
+        recordStage(context.getKind(), context.getTemplateId(), stage, nanos);
+    }
+
+    public void recordStage(ReportKind kind, Long templateId, String stage, long nanos) {
+        Timer.builder("report.generation.stage")
+                .description("Time spent in one stage of report generation")
+                .tags(tags(kind, templateId).and("stage", stage))
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordRows(ReportRenderContext context, long rows) {
+        recordRows(context.getKind(), context.getTemplateId(), rows);
+    }
+
+    public void recordRows(ReportKind kind, Long templateId, long rows) {
+        DistributionSummary.builder("report.rows")
+                .description("Table rows per generated report")
+                .baseUnit("rows")
+                .tags(tags(kind, templateId))
+                .register(meterRegistry)
+                .record(rows);
+    }
+
+    public void recordPdfBytes(ReportRenderContext context, long bytes) {
+        recordPdfBytes(context.getKind(), context.getTemplateId(), bytes);
+    }
+
+    public void recordPdfBytes(ReportKind kind, Long templateId, long bytes) {
+        DistributionSummary.builder("report.pdf.bytes")
+                .description("Size of the rendered report PDF")
+                .baseUnit("bytes")
+                .tags(tags(kind, templateId))
+                .register(meterRegistry)
+                .record(bytes);
+    }
+
+    public void recordSuccess(ReportRenderContext context, long nanos) {
+        recordGeneration(context.getKind(), context.getTemplateId(), nanos, "success");
+    }
+
+    public void recordSuccess(ReportKind kind, Long templateId, long nanos) {
+        recordGeneration(kind, templateId, nanos, "success");
+    }
+
+    public void recordFailure(ReportRenderContext context, long nanos, Throwable error) {
+        recordFailure(context.getKind(), context.getTemplateId(), nanos, error);
+    }
+
+    public void recordFailure(ReportKind kind, Long templateId, long nanos, Throwable error) {
+        recordGeneration(kind, templateId, nanos, "failure");
+        countFailure(kind, templateId, error);
+    }
+
+    /**
+     * Counts a failure outside of generation itself, e.g. a report that rendered but could not be stored
+     */
+    public void countFailure(ReportKind kind, Long templateId, Throwable error) {
+        meterRegistry.counter("report.failures",
+                tags(kind, templateId).and("exception", error.getClass().getSimpleName())).increment();
+    }
+
+    /**
+     * Counts an export answered with an existing report, source "in_flight" or "stored"
+     */
+    public void countDeduplicated(ReportKind kind, Long templateId, String source) {
+        meterRegistry.counter("report.deduplicated", tags(kind, templateId).and("source", source)).increment();
+    }
+
+    private void recordGeneration(ReportKind kind, Long templateId, long nanos, String outcome) {
+        Timer.builder("report.generation")
+                .description("End to end report generation time")
+                .tags(tags(kind, templateId).and("outcome", outcome))
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private static Tags tags(ReportKind kind, Long templateId) {
+        return Tags.of("kind", kind.tag(), "template", templateId == null ? NO_TEMPLATE : templateId.toString());
+    }
+}
@@ -0,0 +1,83 @@
+package ncpl.bms.reports.service;
+
+import lombok.Getter;
+import lombok.Setter;
+import ncpl.bms.reports.model.dao.ReportTemplate;
+import ncpl.bms.reports.model.dto.ReportFrame;
+import ncpl.bms.reports.model.dto.ReportKind;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Everything one report run needs while it moves through generate, statistics, table, page events and store.
+ * A new instance is created per run and never shared, so the report services can stay stateless singletons
+ * and any number of reports can render in parallel.
+ */
+@Getter
+@Setter
+public class ReportRenderContext {
+
+    private final ReportKind kind;
+    private final Long templateId;
+    private final String fromDateMillis;
+    private final String toDateMillis;
+    private final String formattedFromDateTime;
+    private final String formattedToDateTime;
+    private final String username;
+    private final String assignedTo;
+    private final String assignedApprover;
+
+    private ReportTemplate template;
+
+    // Pivoted column names (trend tables), without the timestamp column
+    private List<String> columns;
+
+    // Table header labels, including the leading "Timestamp" label
+    private List<String> headerLabels;
+
+    // Whole report in columnar form, only set by renderers that need the complete result
+    private ReportFrame frame;
+
+    // Legacy row form, kept for callers that still work on maps
+    private List<Map<String, Object>> rows;
+
+    private Map<String, Map<String, Map<String, Object>>> statistics;
+
+    private int rowCount;
+    private long pdfSize;
+
+    // Rows fetched, pages rendered and stored report id, read by the report job status endpoint
+    private ReportJobProgress progress = new ReportJobProgress();
+
+    private ReportRenderContext(ReportKind kind, Long templateId, String fromDateMillis, String toDateMillis,
+                                String username, String assignedTo, String assignedApprover) {
+        this.kind = kind;
+        this.templateId = templateId;
+        this.fromDateMillis = fromDateMillis;
+        this.toDateMillis = toDateMillis;
+        this.username = username;
+        this.assignedTo = assignedTo;
+        this.assignedApprover = assignedApprover;
+
+        // Convert the date range to 'dd-MM-yyyy HH:mm:ss' format
+        SimpleDateFormat dateTimeFormatter = new SimpleDateFormat("dd-MM-yyyy HH:mm:ss");
+        this.formattedFromDateTime = dateTimeFormatter.format(new Date(Long.parseLong(fromDateMillis)));
+        this.formattedToDateTime = dateTimeFormatter.format(new Date(Long.parseLong(toDateMillis)));
+    }
+
+    public static ReportRenderContext create(ReportKind kind, Long templateId, String fromDateMillis, String toDateMillis,
+                                             String username, String assignedTo, String assignedApprover) {
+        return new ReportRenderContext(kind, templateId, fromDateMillis, toDateMillis, username, assignedTo, assignedApprover);
+    }
+
+    public boolean isApproverRequired() {
+        return assignedApprover != null && !assignedApprover.trim().isEmpty();
+    }
+
+    public void incrementRowCount() {
+        rowCount++;
+    }
+}
@@ -0,0 +1,149 @@
+package ncpl.bms.reports.service;
+
+import lombok.extern.slf4j.Slf4j;
+import ncpl.bms.reports.model.dto.ReportKind;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Sits in front of manual report exports so that identical requests (same template, period, user, reviewer
+ * and approver) only run the report pipeline once. A request that arrives while an identical export is
+ * running waits for it and gets the same stored report; a request that arrives within the freshness window after an
+ * identical report was stored gets that report without generating a new one.
+ */
+@Service
+@Slf4j
+public class ReportSingleFlight implements CommandLineRunner {
+
+    @Autowired
+    private PdfService pdfService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ReportMetrics reportMetrics;
+
+    /**
+     * How long a stored report is handed out again instead of generating an identical one; 0 only coalesces
+     * exports that are running at the same time
+     */
+    @Value("${report.export.fresh-window-seconds:120}")
+    private long freshWindowSeconds;
+
+    private final Map<ExportKey, CompletableFuture<Long>> inFlight = new ConcurrentHashMap<>();
+
+    private record ExportKey(Long templateId, String fromDate, String toDate, String username, String assignedTo,
+                             String assignedApprover) {
+    }
+
+    @Override
+    public void run(String... args) {
+        // stored_reports predates template_id; older rows keep NULL and are never reused
+        jdbcTemplate.execute("IF COL_LENGTH('stored_reports', 'template_id') IS NULL " +
+                "ALTER TABLE stored_reports ADD template_id BIGINT NULL;");
+        jdbcTemplate.execute("IF NOT EXISTS (SELECT * FROM sys.indexes WHERE name = 'ix_stored_reports_export') " +
+                "CREATE INDEX ix_stored_reports_export ON stored_reports (template_id, from_date, to_date, generated_by);");
+    }
+
+    /**
+     * Generates the report unless an identical one is running or was stored within the freshness window.
+     *
+     * @return id of the stored report, which is also set on the progress
+     */
+    public long export(Long templateId, String fromDateTime, String toDate, String username, String assignedTo,
+                       String assignedApprover, ReportJobProgress progress) throws Exception {
+        ExportKey key = new ExportKey(templateId, fromDateTime, toDate, username, assignedTo, assignedApprover);
+
+        Long freshId = findFreshReport(key);
+        if (freshId != null) {
+            return reuse(key, freshId, progress);
+        }
+
+        CompletableFuture<Long> flight = new CompletableFuture<>();
+        CompletableFuture<Long> running = inFlight.putIfAbsent(key, flight);
+        if (running != null) {
+            log.info("Waiting for the identical export already running for template {} ({} - {}, {})",
+                    templateId, fromDateTime, toDate, username);
+            reportMetrics.countDeduplicated(ReportKind.MANUAL, templateId, "in_flight");
+            long reportId = await(running);
+            progress.setReportId(reportId);
+            return reportId;
+        }
+
+        try {
+            // An identical export may have been stored between the first look and taking the flight
+            freshId = findFreshReport(key);
+            if (freshId != null) {
+                flight.complete(freshId);
+                return reuse(key, freshId, progress);
+            }
+            pdfService.generatePdf(templateId, fromDateTime, toDate, username, assignedTo, assignedApprover, progress);
+            long reportId = progress.getReportId();
+            flight.complete(reportId);
+            return reportId;
+        } catch (Exception e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            // The stored report now covers later identical requests through the freshness window
+            inFlight.remove(key, flight);
+        }
+    }
+
+    private long reuse(ExportKey key, long reportId, ReportJobProgress progress) {
+        log.info("Reusing report {} stored within {} s for template {} ({} - {}, {})", reportId, freshWindowSeconds,
+                key.templateId(), key.fromDate(), key.toDate(), key.username());
+        reportMetrics.countDeduplicated(ReportKind.MANUAL, key.templateId(), "stored");
+        progress.setReportId(reportId);
+        return reportId;
+    }
+
+    private Long findFreshReport(ExportKey key) {
+        if (freshWindowSeconds <= 0) {
+            return null;
+        }
+        long since = System.currentTimeMillis() - freshWindowSeconds * 1000;
+        // generated_date holds epoch millis as text
+        List<Object> args = new ArrayList<>(Arrays.asList(key.templateId(), new Timestamp(Long.parseLong(key.fromDate())),
+                new Timestamp(Long.parseLong(key.toDate())), key.username()));
+        String sql = "SELECT TOP 1 id FROM stored_reports WHERE template_id = ? AND from_date = ? AND to_date = ? " +
+                "AND generated_by = ? AND " + matches("assigned_review", key.assignedTo(), args) + " AND " +
+                matches("assigned_approver", key.assignedApprover(), args) +
+                " AND TRY_CAST(generated_date AS BIGINT) >= ? ORDER BY id DESC";
+        args.add(since);
+        List<Long> ids = jdbcTemplate.queryForList(sql, Long.class, args.toArray());
+        return ids.isEmpty() ? null : ids.get(0);
+    }
+
+    private static String matches(String column, String value, List<Object> args) {
+        if (value == null) {
+            return column + " IS NULL";
+        }
+        args.add(value);
+        return column + " = ?";
+    }
+
+    private static long await(CompletableFuture<Long> running) throws Exception {
+        try {
+            return running.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
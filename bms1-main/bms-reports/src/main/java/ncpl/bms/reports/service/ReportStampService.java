@@ -0,0 +1,263 @@
+package ncpl.bms.reports.service;
+
+import com.lowagie.text.Element;
+import com.lowagie.text.Font;
+import com.lowagie.text.FontFactory;
+import com.lowagie.text.Paragraph;
+import com.lowagie.text.Phrase;
+import com.lowagie.text.Rectangle;
+import com.lowagie.text.pdf.PdfContentByte;
+import com.lowagie.text.pdf.PdfPCell;
+import com.lowagie.text.pdf.PdfPTable;
+import com.lowagie.text.pdf.PdfReader;
+import com.lowagie.text.pdf.PdfStamper;
+import lombok.extern.slf4j.Slf4j;
+import ncpl.bms.reports.model.dto.StoredPdf;
+import ncpl.bms.reports.service.blob.BlobStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Review and approval stamps, applied when a report is downloaded instead of when it is reviewed or approved.
+ * Reviewing or approving only records who and when, plus the stamp in stamp_overlay ("R" review, "A" approval);
+ * the stored PDF stays as generated. The first download afterwards stamps the PDF once, stores the result as a
+ * blob of its own (stamped_ref) and remembers what it was stamped with (stamped_key), so later downloads
+ * serve the cached copy until the next review or approval.
+ * <p>
+ * Reports stamped before this existed have no stamp_overlay: their stamps are already in the stored PDF,
+ * which is served as it is.
+ */
+@Service
+@Slf4j
+public class ReportStampService implements CommandLineRunner {
+
+    private static final String REVIEW = "R";
+    private static final String APPROVAL = "A";
+
+    private static final int PDF_BUFFER_SIZE = 64 * 1024;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ReportBlobService reportBlobService;
+
+    @Value("${report.pdf.spool-dir:${java.io.tmpdir}}")
+    private String spoolDir;
+
+    @Override
+    public void run(String... args) {
+        for (ReportBlobService.StoredTable stored : stampedTables()) {
+            String table = stored.table();
+            addColumnIfMissing(table, "stamp_overlay", "VARCHAR(10) NULL");
+            addColumnIfMissing(table, "stamped_ref", "VARCHAR(80) NULL");
+            addColumnIfMissing(table, "stamped_key", "CHAR(64) NULL");
+        }
+    }
+
+    private void addColumnIfMissing(String table, String column, String definition) {
+        jdbcTemplate.execute("IF OBJECT_ID('" + table + "') IS NOT NULL AND COL_LENGTH('" + table + "', '" + column + "') IS NULL " +
+                "ALTER TABLE " + table + " ADD " + column + " " + definition + ";");
+    }
+
+    private static ReportBlobService.StoredTable[] stampedTables() {
+        return new ReportBlobService.StoredTable[]{ReportBlobService.StoredTable.MANUAL, ReportBlobService.StoredTable.DAILY,
+                ReportBlobService.StoredTable.WEEKLY, ReportBlobService.StoredTable.MONTHLY};
+    }
+
+    /**
+     * Records a review that is stamped on every page when the report is next downloaded
+     */
+    public void recordReview(ReportBlobService.StoredTable stored, Long reportId, String reviewer) throws Exception {
+        int updated = jdbcTemplate.update("UPDATE " + stored.table() + " SET reviewed_by = ?, review_date = ?, " +
+                        "stamp_overlay = " + withStamp(REVIEW) + " WHERE id = ?",
+                reviewer, String.valueOf(System.currentTimeMillis()), reportId);
+        if (updated == 0) {
+            throw new Exception("Report not found");
+        }
+    }
+
+    /**
+     * Records an approval that is stamped when the report is next downloaded
+     */
+    public void recordApproval(ReportBlobService.StoredTable stored, Long reportId, String approver) throws Exception {
+        int updated = jdbcTemplate.update("UPDATE " + stored.table() + " SET is_approved = ?, approved_by = ?, approved_date = ?, " +
+                        "stamp_overlay = " + withStamp(APPROVAL) + " WHERE id = ?",
+                true, approver, String.valueOf(System.currentTimeMillis()), reportId);
+        if (updated == 0) {
+            throw new Exception("Report not found");
+        }
+    }
+
+    private static String withStamp(String stamp) {
+        return "CASE WHEN CHARINDEX('" + stamp + "', ISNULL(stamp_overlay, '')) > 0 THEN stamp_overlay " +
+                "ELSE ISNULL(stamp_overlay, '') + '" + stamp + "' END";
+    }
+
+    /**
+     * The report PDF as it should be downloaded, i.e. with its recorded review and approval stamped on;
+     * null when there is no such report or it has no PDF
+     */
+    public StoredPdf download(ReportBlobService.StoredTable stored, Long reportId) throws IOException {
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList("SELECT name, blob_ref, stamp_overlay, stamped_ref, stamped_key, " +
+                "reviewed_by, review_date, approved_by, approved_date FROM " + stored.table() + " WHERE id = ?", reportId);
+        if (rows.isEmpty()) {
+            return null;
+        }
+        Map<String, Object> row = rows.get(0);
+        String overlay = (String) row.get("stamp_overlay");
+        if (overlay == null || overlay.isEmpty()) {
+            return reportBlobService.download(stored, reportId);
+        }
+
+        String blobRef = reportBlobService.ensureBlob(stored, reportId);
+        if (blobRef == null) {
+            return null;
+        }
+        String name = (String) row.get("name");
+        String reviewer = (String) row.get("reviewed_by");
+        String reviewDate = (String) row.get("review_date");
+        String approver = (String) row.get("approved_by");
+        String approvedDate = (String) row.get("approved_date");
+        String stampKey = stampKey(blobRef, overlay, reviewer, reviewDate, approver, approvedDate);
+
+        String stampedRef = (String) row.get("stamped_ref");
+        if (stampedRef != null && stampKey.equals(row.get("stamped_key"))) {
+            return reportBlobService.download(name, stampedRef);
+        }
+
+        long start = System.nanoTime();
+        Path stampedFile = Files.createTempFile(Path.of(spoolDir), "bms-stamped-", ".pdf");
+        try {
+            try (InputStream original = reportBlobService.open(blobRef);
+                 OutputStream out = new BufferedOutputStream(Files.newOutputStream(stampedFile), PDF_BUFFER_SIZE)) {
+                PdfReader reader = new PdfReader(original);
+                PdfStamper stamper = new PdfStamper(reader, out);
+                if (overlay.contains(REVIEW)) {
+                    stampReview(reader, stamper, reviewer, formatDate(reviewDate, "d-MMMM-yyyy HH:mm:ss"));
+                }
+                if (overlay.contains(APPROVAL)) {
+                    if (stored == ReportBlobService.StoredTable.MANUAL) {
+                        stampApproval(reader, stamper, approver, formatDate(approvedDate, "d-MMMM-yyyy HH:mm:ss"));
+                    } else {
+                        stampScheduledApproval(reader, stamper, approver, formatDate(approvedDate, "yyyy-MM-dd"));
+                    }
+                }
+                stamper.close();
+                reader.close();
+            }
+            stampedRef = reportBlobService.store(stampedFile);
+        } finally {
+            Files.deleteIfExists(stampedFile);
+        }
+
+        jdbcTemplate.update("UPDATE " + stored.table() + " SET stamped_ref = ?, stamped_key = ? WHERE id = ?",
+                stampedRef, stampKey, reportId);
+        log.info("Stamped {} report {} ({}) in {} ms", stored.table(), reportId, overlay, (System.nanoTime() - start) / 1_000_000);
+        return reportBlobService.download(name, stampedRef);
+    }
+
+    // Everything the stamped PDF depends on; a new review or approval changes it
+    private static String stampKey(String... parts) {
+        return HexFormat.of().formatHex(BlobStore.sha256().digest(String.join("|", parts).getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static String formatDate(String millis, String pattern) {
+        try {
+            LocalDateTime dateTime = LocalDateTime.ofInstant(Instant.ofEpochMilli(Long.parseLong(millis)), ZoneId.systemDefault());
+            return dateTime.format(DateTimeFormatter.ofPattern(pattern));
+        } catch (NumberFormatException e) {
+            return millis;
+        }
+    }
+
+    // Review box at the bottom right of every page of a manual report
+    private void stampReview(PdfReader pdfReader, PdfStamper pdfStamper, String reviewer, String formattedDate) {
+        Font font = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 10);
+        PdfPTable reviewTable = new PdfPTable(1);
+        reviewTable.setTotalWidth(180);
+        reviewTable.setWidthPercentage(100);
+
+        PdfPCell reviewCell = new PdfPCell(new Phrase("\nReviewed By:Supervisor: " + reviewer + "\nDate: " + formattedDate, font));
+        reviewCell.setBorder(Rectangle.NO_BORDER);
+        reviewCell.setPadding(10);
+        reviewCell.setHorizontalAlignment(Element.ALIGN_LEFT);
+        reviewTable.addCell(reviewCell);
+
+        int totalPages = pdfReader.getNumberOfPages();
+        for (int i = 1; i <= totalPages; i++) {
+            PdfContentByte canvas = pdfStamper.getOverContent(i);
+            Rectangle pageSize = pdfReader.getPageSize(i);
+
+            float x = pageSize.getRight() - 260;
+            float y = pageSize.getBottom() + 73;
+            reviewTable.writeSelectedRows(0, -1, x, y, canvas);
+        }
+    }
+
+    // Approval box right of the review box on every page of a manual report
+    private void stampApproval(PdfReader pdfReader, PdfStamper pdfStamper, String approver, String formattedDate) {
+        PdfPTable approvalTable = new PdfPTable(1);
+        approvalTable.setTotalWidth(180);
+        approvalTable.setWidthPercentage(100);
+
+        Font fontTitle = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 10);
+
+        PdfPCell approvalCell = new PdfPCell(new Phrase("\nApproved By:Supervisor: " + approver + "\nDate: " + formattedDate, fontTitle));
+        approvalCell.setBorder(Rectangle.NO_BORDER);
+        approvalCell.setPadding(10);
+        approvalCell.setHorizontalAlignment(Element.ALIGN_RIGHT);
+        approvalTable.addCell(approvalCell);
+
+        int totalPages = pdfReader.getNumberOfPages();
+        for (int i = 1; i <= totalPages; i++) {
+            PdfContentByte content = pdfStamper.getOverContent(i);
+            Rectangle pageSize = pdfReader.getPageSize(i);
+            float xPos = pageSize.getRight() - approvalTable.getTotalWidth() + 210;
+            float yPos = pageSize.getBottom() + 73;
+            approvalTable.writeSelectedRows(0, -1, xPos, yPos, content);
+        }
+    }
+
+    // Approval footer on the last page of a daily, weekly or monthly report
+    private void stampScheduledApproval(PdfReader pdfReader, PdfStamper pdfStamper, String approver, String formattedDate) {
+        PdfContentByte content = pdfStamper.getOverContent(pdfReader.getNumberOfPages());
+
+        PdfPTable footerTable = new PdfPTable(1);
+        footerTable.setWidthPercentage(100);
+
+        Font fontTiltle = FontFactory.getFont(FontFactory.HELVETICA_BOLD);
+        fontTiltle.setSize(13);
+
+        PdfPCell reviewCell = new PdfPCell(new Paragraph("Reviewed By:\nSupervisor: " + approver + "\nDate: " + formattedDate, fontTiltle));
+        reviewCell.setBorder(Rectangle.NO_BORDER);
+        reviewCell.setHorizontalAlignment(Element.ALIGN_RIGHT);
+        footerTable.addCell(reviewCell);
+
+        Rectangle pageSize = pdfReader.getPageSize(pdfReader.getNumberOfPages());
+        float leftMargin = pageSize.getLeft();
+        float bottomMargin = pageSize.getBottom();
+        float rightMargin = pageSize.getRight();
+
+        footerTable.setTotalWidth(rightMargin - leftMargin);
+        footerTable.writeSelectedRows(0, -1, leftMargin, bottomMargin + 50, content);
+    }
+}
@@ -4,6 +4,7 @@ import lombok.extern.slf4j.Slf4j;
 import ncpl.bms.reports.model.dao.ReportTemplate;
 import ncpl.bms.reports.repository.ReportTemplateRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Service;
 import org.springframework.web.bind.annotation.*;
 import java.util.List;
@@ -11,24 +12,51 @@ import java.util.Optional;
 
 @Service
 @Slf4j
-public class ReportTemplateService {
+public class ReportTemplateService implements CommandLineRunner {
 
     @Autowired
     private ReportTemplateRepository reportTemplateRepo;
 
+    @Autowired
+    private TemplateMetadataService templateMetadataService;
+
+
+    /**
+     * One-time migration: re-encodes templates whose parameters are still Java-serialized
+     */
+    @Override
+    public void run(String... args) {
+        List<ReportTemplate> legacy = reportTemplateRepo.findAll().stream()
+                .filter(ReportTemplate::hasLegacyParameters)
+                .toList();
+        if (legacy.isEmpty()) {
+            return;
+        }
+
+        for (ReportTemplate template : legacy) {
+            template.setParameters(template.getParameters());
+        }
+        reportTemplateRepo.saveAll(legacy);
+        legacy.forEach(template -> templateMetadataService.invalidate(template.getId()));
+        log.info("Re-encoded parameters of {} report templates", legacy.size());
+    }
 
     public ReportTemplate saveTemplate(ReportTemplate reportTemplate) {
-        return reportTemplateRepo.save(reportTemplate);
+        ReportTemplate saved = reportTemplateRepo.save(reportTemplate);
+        templateMetadataService.invalidate(saved.getId());
+        return saved;
     }
 
     public List<ReportTemplate> getTemplates(){
         return reportTemplateRepo.findAll();
     }
 
+    /**
+     * Served from the template cache as a detached copy
+     */
     public ReportTemplate getById(Long id) {
 //        log.info("Get template with id {} ", id);
-        return reportTemplateRepo.findById(id)
-                .orElseThrow(() -> new RuntimeException("Template not found with id " + id));
+        return templateMetadataService.getTemplate(id);
     }
 
     public List<ReportTemplate> getTemplatesByName(String name) {
@@ -37,6 +65,7 @@ public class ReportTemplateService {
 
     public void deleteTemplatesByIds(List<Long> ids) {
         reportTemplateRepo.deleteAllById(ids);
+        ids.forEach(templateMetadataService::invalidate);
     }
 
     public ReportTemplate updateTemplate(Long id, ReportTemplate updatedTemplate) {
@@ -52,7 +81,9 @@ public class ReportTemplateService {
             template.setRoomId(updatedTemplate.getRoomId());
             template.setRoomName(updatedTemplate.getRoomName());
 
-            return reportTemplateRepo.save(template);
+            ReportTemplate saved = reportTemplateRepo.save(template);
+            templateMetadataService.invalidate(id);
+            return saved;
         } else {
             throw new RuntimeException("Template not found with id " + id);
         }
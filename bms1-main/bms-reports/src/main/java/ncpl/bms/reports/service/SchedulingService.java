@@ -1,4 +1,7 @@
 package ncpl.bms.reports.service;
+import ncpl.bms.reports.service.engine.ReportPeriod;
+import ncpl.bms.reports.service.engine.ReportScheduler;
+import ncpl.bms.reports.service.engine.ScheduleIndex;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.JdbcTemplate;
 import lombok.extern.slf4j.Slf4j;
@@ -13,10 +16,14 @@ public class SchedulingService {
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
-    public void scheduleDailyReport(int reportId, String reportName ,  String assignedTo, String assigned_approver, String ScheduledBy,  String dailyTime) {
+    @Autowired
+    private ReportScheduler reportScheduler;
+
+    public void scheduleDailyReport(int reportId, String reportName ,  String assignedTo, String assigned_approver, String ScheduledBy,  String dailyTime, String timeZone, String windowAlignment, String dataOffset) {
+        ScheduleIndex.validate(ReportPeriod.DAILY, null, timeZone, windowAlignment, dataOffset);
         int chk = (assigned_approver == null || assigned_approver.trim().isEmpty()) ? 0 : 1;
         long currentTimeMillis = System.currentTimeMillis();
-       String sql = "INSERT INTO Daily_Scheduled_Reports (IdOfReport, Name, assigned_review, isApproverRequired, assignedApprover, scheduled_by, schedule_date, DailyTimeOfReport) VALUES (?, ?,?,?,?, ?, ?, ?)";
+       String sql = "INSERT INTO Daily_Scheduled_Reports (IdOfReport, Name, assigned_review, isApproverRequired, assignedApprover, scheduled_by, schedule_date, DailyTimeOfReport, time_zone, window_alignment, data_offset) VALUES (?, ?,?,?,?, ?, ?, ?, ?, ?, ?)";
         jdbcTemplate.update(connection -> {
             PreparedStatement ps = connection.prepareStatement(sql);
             ps.setInt(1, reportId);
@@ -28,14 +35,19 @@ public class SchedulingService {
             ps.setString(6, ScheduledBy);
             ps.setLong(7, currentTimeMillis);
             ps.setString(8, dailyTime);  // Store the dailyTime in the database
+            ps.setString(9, blankToNull(timeZone));
+            ps.setString(10, blankToNull(windowAlignment));
+            ps.setString(11, blankToNull(dataOffset));
             return ps;
         });
+        reportScheduler.scheduleChanged();
     }
 
-    public void scheduleWeeklyReport(int reportId, String reportName ,  String assignedTo, String assigned_approver, String ScheduledBy,  String weeklyTime, String weeklyDay) {
+    public void scheduleWeeklyReport(int reportId, String reportName ,  String assignedTo, String assigned_approver, String ScheduledBy,  String weeklyTime, String weeklyDay, String timeZone, String windowAlignment, String dataOffset) {
+        ScheduleIndex.validate(ReportPeriod.WEEKLY, weeklyDay, timeZone, windowAlignment, dataOffset);
         int chk = (assigned_approver == null || assigned_approver.trim().isEmpty()) ? 0 : 1;
         long currentTimeMillis = System.currentTimeMillis();
-        String sql = "INSERT INTO weekly_scheduled_reports (IdOfReport, Name, assigned_review, isApproverRequired, assignedApprover, scheduled_by, schedule_date, TimeOfReport, dayOfReport) VALUES (?, ?,?,?,?, ?, ?, ?,?)";
+        String sql = "INSERT INTO weekly_scheduled_reports (IdOfReport, Name, assigned_review, isApproverRequired, assignedApprover, scheduled_by, schedule_date, TimeOfReport, dayOfReport, time_zone, window_alignment, data_offset) VALUES (?, ?,?,?,?, ?, ?, ?,?, ?, ?, ?)";
         jdbcTemplate.update(connection -> {
             PreparedStatement ps = connection.prepareStatement(sql);
             ps.setInt(1, reportId);
@@ -48,15 +60,20 @@ public class SchedulingService {
             ps.setLong(7, currentTimeMillis);
             ps.setString(8, weeklyTime);
             ps.setString(9,weeklyDay);
+            ps.setString(10, blankToNull(timeZone));
+            ps.setString(11, blankToNull(windowAlignment));
+            ps.setString(12, blankToNull(dataOffset));
             return ps;
         });
+        reportScheduler.scheduleChanged();
     }
 
 
-    public void scheduleMonthlyReport(int reportId, String reportName ,  String assignedTo, String assigned_approver, String ScheduledBy,  String monthTime, String monthDay) {
+    public void scheduleMonthlyReport(int reportId, String reportName ,  String assignedTo, String assigned_approver, String ScheduledBy,  String monthTime, String monthDay, String timeZone, String windowAlignment, String dataOffset) {
+        ScheduleIndex.validate(ReportPeriod.MONTHLY, monthDay, timeZone, windowAlignment, dataOffset);
         int chk = (assigned_approver == null || assigned_approver.trim().isEmpty()) ? 0 : 1;
         long currentTimeMillis = System.currentTimeMillis();
-        String sql = "INSERT INTO monthly_scheduled_reports (IdOfReport, Name, assigned_review, isApproverRequired, assignedApprover, scheduled_by, schedule_date, TimeOfReport, dayOfReport) VALUES (?, ?,?,?,?, ?, ?, ?,?)";
+        String sql = "INSERT INTO monthly_scheduled_reports (IdOfReport, Name, assigned_review, isApproverRequired, assignedApprover, scheduled_by, schedule_date, TimeOfReport, dayOfReport, time_zone, window_alignment, data_offset) VALUES (?, ?,?,?,?, ?, ?, ?,?, ?, ?, ?)";
         jdbcTemplate.update(connection -> {
             PreparedStatement ps = connection.prepareStatement(sql);
             ps.setInt(1, reportId);
@@ -69,8 +86,12 @@ public class SchedulingService {
             ps.setLong(7, currentTimeMillis);
             ps.setString(8, monthTime);
             ps.setString(9,monthDay);
+            ps.setString(10, blankToNull(timeZone));
+            ps.setString(11, blankToNull(windowAlignment));
+            ps.setString(12, blankToNull(dataOffset));
             return ps;
         });
+        reportScheduler.scheduleChanged();
     }
 
     public List<Integer> getAllScheduledReports() {
@@ -88,4 +109,8 @@ public class SchedulingService {
         return jdbcTemplate.queryForList(sql, Integer.class);
     }
 
+    // Optional schedule settings left empty fall back to the report.schedule.* defaults
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
 }
@@ -0,0 +1,134 @@
+package ncpl.bms.reports.service;
+
+import lombok.extern.slf4j.Slf4j;
+import ncpl.bms.reports.model.dto.ReportFrame;
+
+import java.sql.Timestamp;
+import java.util.*;
+
+/**
+ * Collects max/min/avg per report column while rows are rendered, so the statistics table does not need
+ * a second run of the report query. State is kept in primitive arrays indexed by column position, and
+ * {@link ReportFrame} chunks are consumed column by column without boxing.
+ * Produces the same map shape as {@link PdfService#calculateStatistics}; on equal values the first
+ * occurrence keeps the timestamp.
+ */
+@Slf4j
+public class StatisticsAccumulator {
+
+    private final List<String> columns;
+    private final double[] max;
+    private final double[] min;
+    private final long[] maxTime;
+    private final long[] minTime;
+    private final double[] sum;
+    private final int[] count;
+
+    public StatisticsAccumulator(List<String> columns) {
+        this.columns = columns;
+        int size = columns.size();
+        this.max = new double[size];
+        this.min = new double[size];
+        this.maxTime = new long[size];
+        this.minTime = new long[size];
+        this.sum = new double[size];
+        this.count = new int[size];
+        Arrays.fill(max, Double.NEGATIVE_INFINITY);
+        Arrays.fill(min, Double.POSITIVE_INFINITY);
+    }
+
+    public void accept(Map<String, Object> row) {
+        Object timeObj = row.get("timestamp");
+        if (timeObj == null) {
+            return;
+        }
+        long time;
+        if (timeObj instanceof Timestamp) {
+            time = ((Timestamp) timeObj).getTime();
+        } else {
+            try {
+                time = Long.parseLong(timeObj.toString());
+            } catch (NumberFormatException e) {
+                log.warn("⛔ Error parsing timestamp '{}': {}", timeObj, e.getMessage());
+                return;
+            }
+        }
+
+        for (int i = 0; i < columns.size(); i++) {
+            Object valObj = row.get(columns.get(i));
+            if (valObj == null) continue;
+
+            double val;
+            if (valObj instanceof Number) {
+                val = ((Number) valObj).doubleValue();
+            } else {
+                try {
+                    val = Double.parseDouble(valObj.toString());
+                } catch (NumberFormatException e) {
+                    log.warn("⛔ Error parsing value for parameter '{}': {}", columns.get(i), e.getMessage());
+                    continue;
+                }
+            }
+            add(i, val, time);
+        }
+    }
+
+    /**
+     * Adds every row of a frame; the frame must have the columns this accumulator was created with.
+     */
+    public void accept(ReportFrame frame) {
+        for (int i = 0; i < columns.size(); i++) {
+            double[] values = frame.getColumnValues(i);
+            for (int row = 0; row < frame.size(); row++) {
+                double val = values[row];
+                if (Double.isNaN(val)) continue;
+                add(i, val, frame.getTimestamp(row));
+            }
+        }
+    }
+
+    private void add(int column, double val, long time) {
+        if (val > max[column]) {
+            max[column] = val;
+            maxTime[column] = time;
+        }
+        if (val < min[column]) {
+            min[column] = val;
+            minTime[column] = time;
+        }
+        sum[column] += val;
+        count[column]++;
+    }
+
+    /**
+     * parameter -> max/min/avg -> value (truncated to int, as printed in the report) and timestamp millis
+     */
+    public Map<String, Map<String, Map<String, Object>>> toStatistics() {
+        Map<String, Map<String, Map<String, Object>>> result = new LinkedHashMap<>();
+
+        for (int i = 0; i < columns.size(); i++) {
+            Map<String, Map<String, Object>> statMap = new LinkedHashMap<>();
+            Map<String, Object> maxMap = new HashMap<>();
+            Map<String, Object> minMap = new HashMap<>();
+            Map<String, Object> avgMap = new HashMap<>();
+
+            if (count[i] > 0) {
+                maxMap.put("value", (int) max[i]);
+                maxMap.put("timestamp", maxTime[i]);
+
+                minMap.put("value", (int) min[i]);
+                minMap.put("timestamp", minTime[i]);
+
+                avgMap.put("value", (int) (sum[i] / count[i]));
+            } else {
+                log.warn("⚠️ No valid data found for parameter '{}'", columns.get(i));
+            }
+
+            statMap.put("max", maxMap);
+            statMap.put("min", minMap);
+            statMap.put("avg", avgMap);
+            result.put(columns.get(i), statMap);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,106 @@
+package ncpl.bms.reports.service;
+
+import lombok.extern.slf4j.Slf4j;
+import ncpl.bms.reports.model.dao.ReportTemplate;
+import ncpl.bms.reports.model.dto.TemplateMetadata;
+import ncpl.bms.reports.repository.ReportTemplateRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caches report templates and the metadata derived from them, so a report run reads report_template
+ * once instead of once per page and per lookup. Entries are dropped by {@link ReportTemplateService}
+ * whenever a template is saved, updated or deleted, and expire after
+ * {@code report.template-cache.ttl-minutes} to pick up changes made directly in the database.
+ */
+@Service
+@Slf4j
+public class TemplateMetadataService {
+
+    @Autowired
+    private ReportTemplateRepository reportTemplateRepo;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${report.template-cache.ttl-minutes:10}")
+    private long ttlMinutes;
+
+    private final Map<Long, TemplateMetadata> templates = new ConcurrentHashMap<>();
+
+    // TABLE_NAME -> Header_Name from beckman_room_data, shared by all templates
+    private volatile Map<String, String> tableToHeaderMap;
+    private volatile long tableToHeaderMapLoadedAt;
+
+    public TemplateMetadata get(Long templateId) {
+        TemplateMetadata metadata = templates.get(templateId);
+        if (metadata != null && !isExpired(metadata.getLoadedAtMillis())) {
+            return metadata;
+        }
+        // Loading inside compute holds the entry, so an invalidate() racing with the load waits for it and
+        // then drops it, instead of the load putting the old template back afterwards
+        return templates.compute(templateId, (id, current) ->
+                current == null || isExpired(current.getLoadedAtMillis()) ? load(id) : current);
+    }
+
+    /**
+     * A detached copy of the cached template, free to be changed by the caller
+     */
+    public ReportTemplate getTemplate(Long templateId) {
+        return get(templateId).getTemplate().copy();
+    }
+
+    public Map<String, String> getTableToHeaderMap() {
+        Map<String, String> map = tableToHeaderMap;
+        if (map == null || isExpired(tableToHeaderMapLoadedAt)) {
+            map = loadTableToHeaderMap();
+            tableToHeaderMapLoadedAt = System.currentTimeMillis();
+            tableToHeaderMap = map;
+        }
+        return map;
+    }
+
+    public void invalidate(Long templateId) {
+        if (templateId != null) {
+            templates.remove(templateId);
+        }
+    }
+
+    public void invalidateAll() {
+        templates.clear();
+        tableToHeaderMap = null;
+    }
+
+    private TemplateMetadata load(Long templateId) {
+        ReportTemplate template = reportTemplateRepo.findById(templateId)
+                .orElseThrow(() -> new RuntimeException("Template not found with id " + templateId));
+        return new TemplateMetadata(template, System.currentTimeMillis());
+    }
+
+    private Map<String, String> loadTableToHeaderMap() {
+        String sql = "SELECT TABLE_NAME, Header_Name FROM beckman_room_data";
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(sql);
+        Map<String, String> map = new HashMap<>();
+
+        for (Map<String, Object> row : rows) {
+            String tableName = String.valueOf(row.get("TABLE_NAME")).trim();
+            String headerName = String.valueOf(row.get("Header_Name")).trim();
+            map.put(tableName, headerName);
+        }
+
+        return Collections.unmodifiableMap(map);
+    }
+
+    private boolean isExpired(long loadedAtMillis) {
+        return System.currentTimeMillis() - loadedAtMillis > TimeUnit.MINUTES.toMillis(ttlMinutes);
+    }
+}
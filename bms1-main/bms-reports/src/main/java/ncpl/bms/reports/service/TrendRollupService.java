@@ -0,0 +1,331 @@
+package ncpl.bms.reports.service;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import ncpl.bms.reports.db.info.TableInfoService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Maintains pre-aggregated 10-minute buckets (min/max/sum/count/last) for every EMS_NEW_* trend table
+ * in ems_trend_rollup. Each table has a watermark in ems_trend_rollup_watermark: every bucket that
+ * starts before the watermark is complete, so report queries can read those buckets instead of the raw rows.
+ * Samples that still arrive after their bucket was closed are picked up by re-merging the last
+ * report.rollup.rescan-minutes below the watermark on every refresh.
+ * <p>
+ * Only the node holding the trend-rollup lease refreshes. It renews the lease before every merge and stops
+ * as soon as it has lost it, so two nodes never merge at the same time. Within a node a lock keeps a
+ * manually requested refresh from running next to the scheduled one.
+ */
+@Service
+@Slf4j
+public class TrendRollupService implements CommandLineRunner {
+
+    public static final String ROLLUP_TABLE = "ems_trend_rollup";
+    public static final String WATERMARK_TABLE = "ems_trend_rollup_watermark";
+    public static final int BUCKET_MINUTES = 10;
+    public static final String LEASE = "trend-rollup";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TableInfoService tableInfoService;
+
+    @Autowired
+    private ClusterLeaseService clusterLeaseService;
+
+    @Autowired
+    private TaskScheduler taskScheduler;
+
+    private final ReentrantLock refreshLock = new ReentrantLock();
+    private final AtomicBoolean refreshRequested = new AtomicBoolean();
+
+    @Value("${report.rollup.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * Raw samples can arrive late, so buckets are only closed once they are this many minutes old
+     */
+    @Value("${report.rollup.lag-minutes:10}")
+    private int lagMinutes;
+
+    /**
+     * Upper bound of raw data aggregated by a single MERGE while catching up a table
+     */
+    @Value("${report.rollup.batch-hours:24}")
+    private int batchHours;
+
+    /**
+     * Closed buckets this many minutes below the watermark are re-aggregated on every refresh
+     */
+    @Value("${report.rollup.rescan-minutes:60}")
+    private int rescanMinutes;
+
+    /**
+     * Upper bound of batches merged per table by one refresh, so a table's first backfill is spread over
+     * several refreshes instead of holding the scheduler for hours
+     */
+    @Value("${report.rollup.max-batches-per-refresh:4}")
+    private int maxBatchesPerRefresh;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void run(String... args) {
+        if (!enabled) {
+            log.info("Trend rollup is disabled, report queries will read raw trend tables");
+            return;
+        }
+        createTables();
+    }
+
+    public void createTables() {
+        jdbcTemplate.execute("IF NOT EXISTS (SELECT * FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_NAME = '" + ROLLUP_TABLE + "') BEGIN " +
+                "CREATE TABLE " + ROLLUP_TABLE + " (" +
+                "point_table VARCHAR(128) NOT NULL, " +
+                "bucket_start DATETIME2(0) NOT NULL, " +
+                "min_val FLOAT NULL, " +
+                "max_val FLOAT NULL, " +
+                "sum_val FLOAT NULL, " +
+                "sample_count INT NOT NULL, " +
+                "last_val FLOAT NULL, " +
+                "last_ts DATETIME2 NULL, " +
+                "CONSTRAINT pk_" + ROLLUP_TABLE + " PRIMARY KEY CLUSTERED (point_table, bucket_start)); END;");
+
+        jdbcTemplate.execute("IF NOT EXISTS (SELECT * FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_NAME = '" + WATERMARK_TABLE + "') BEGIN " +
+                "CREATE TABLE " + WATERMARK_TABLE + " (" +
+                "point_table VARCHAR(128) NOT NULL PRIMARY KEY, " +
+                "watermark DATETIME2(0) NOT NULL, " +
+                "updated_at DATETIME2 NOT NULL); END;");
+    }
+
+    /**
+     * Hands a refresh to the scheduler instead of running it on the caller's thread
+     *
+     * @return false when a refresh is already running or queued on this node
+     */
+    public boolean requestRefresh() {
+        if (refreshLock.isLocked() || !refreshRequested.compareAndSet(false, true)) {
+            return false;
+        }
+        taskScheduler.schedule(() -> {
+            refreshRequested.set(false);
+            refreshAll();
+        }, Instant.now());
+        return true;
+    }
+
+    /**
+     * Advances the rollup of every trend table up to the current closed bucket.
+     *
+     * @return false when a refresh is already running on this node, or another node holds the rollup lease
+     * or took it over during the refresh
+     */
+    public boolean refreshAll() {
+        if (!enabled) {
+            return true;
+        }
+        if (!refreshLock.tryLock()) {
+            log.info("Trend rollup refresh already running, skipping this one");
+            return false;
+        }
+        try {
+            return refreshTables();
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    private boolean refreshTables() {
+        if (!clusterLeaseService.tryAcquire(LEASE)) {
+            return false;
+        }
+        LocalDateTime target = floorToBucket(LocalDateTime.now().minusMinutes(lagMinutes));
+        for (String table : tableInfoService.getTables()) {
+            try {
+                if (!refreshTable(table, target)) {
+                    log.warn("Trend rollup lease taken over by another node, stopping the refresh at {}", table);
+                    return false;
+                }
+            } catch (Exception e) {
+                log.error("Failed to refresh trend rollup for table {}", table, e);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return false when the rollup lease was lost before the table reached the target
+     */
+    public boolean refreshTable(String table, LocalDateTime target) {
+        if (!clusterLeaseService.tryAcquire(LEASE)) {
+            return false;
+        }
+        LocalDateTime watermark = getWatermark(table);
+        if (watermark == null) {
+            Timestamp firstSample = jdbcTemplate.queryForObject("SELECT MIN(timestamp) FROM " + table, Timestamp.class);
+            if (firstSample == null) {
+                return true;
+            }
+            watermark = floorToBucket(firstSample.toLocalDateTime());
+        } else if (rescanMinutes > 0) {
+            mergeBuckets(table, watermark.minusMinutes(rescanMinutes), watermark);
+        }
+
+        int batches = 0;
+        while (watermark.isBefore(target) && batches++ < maxBatchesPerRefresh) {
+            if (batches > 1 && !clusterLeaseService.tryAcquire(LEASE)) {
+                return false;
+            }
+            LocalDateTime chunkEnd = watermark.plusHours(batchHours);
+            if (chunkEnd.isAfter(target)) {
+                chunkEnd = target;
+            }
+            mergeBuckets(table, watermark, chunkEnd);
+            saveWatermark(table, chunkEnd);
+            log.debug("Trend rollup for {} advanced to {}", table, chunkEnd);
+            watermark = chunkEnd;
+        }
+        return true;
+    }
+
+    /**
+     * Re-aggregates the raw samples of [from, to) into buckets. The MERGE overwrites existing buckets,
+     * so re-running a range is safe.
+     */
+    private void mergeBuckets(String table, LocalDateTime from, LocalDateTime to) {
+        String bucketExpr = "DATEADD(MINUTE, (DATEDIFF(MINUTE, '1900-01-01', timestamp) / 10) * 10, '1900-01-01')";
+        String sql = "MERGE " + ROLLUP_TABLE + " AS t USING (" +
+                "SELECT ? AS point_table, b.bucket_start, b.min_val, b.max_val, b.sum_val, b.sample_count, l.value AS last_val, b.last_ts FROM (" +
+                "SELECT " + bucketExpr + " AS bucket_start, MIN(value) AS min_val, MAX(value) AS max_val, " +
+                "SUM(CAST(value AS FLOAT)) AS sum_val, COUNT(value) AS sample_count, MAX(timestamp) AS last_ts " +
+                "FROM " + table + " WHERE timestamp >= ? AND timestamp < ? GROUP BY " + bucketExpr + ") b " +
+                "OUTER APPLY (SELECT TOP 1 value FROM " + table + " WHERE timestamp = b.last_ts) l" +
+                ") AS s ON t.point_table = s.point_table AND t.bucket_start = s.bucket_start " +
+                "WHEN MATCHED THEN UPDATE SET min_val = s.min_val, max_val = s.max_val, sum_val = s.sum_val, " +
+                "sample_count = s.sample_count, last_val = s.last_val, last_ts = s.last_ts " +
+                "WHEN NOT MATCHED THEN INSERT (point_table, bucket_start, min_val, max_val, sum_val, sample_count, last_val, last_ts) " +
+                "VALUES (s.point_table, s.bucket_start, s.min_val, s.max_val, s.sum_val, s.sample_count, s.last_val, s.last_ts);";
+
+        jdbcTemplate.update(sql, table, Timestamp.valueOf(from), Timestamp.valueOf(to));
+    }
+
+    private void saveWatermark(String table, LocalDateTime watermark) {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        int updated = jdbcTemplate.update("UPDATE " + WATERMARK_TABLE + " SET watermark = ?, updated_at = ? WHERE point_table = ?",
+                Timestamp.valueOf(watermark), now, table);
+        if (updated == 0) {
+            jdbcTemplate.update("INSERT INTO " + WATERMARK_TABLE + " (point_table, watermark, updated_at) VALUES (?, ?, ?)",
+                    table, Timestamp.valueOf(watermark), now);
+        }
+    }
+
+    public LocalDateTime getWatermark(String table) {
+        List<Timestamp> rows = jdbcTemplate.queryForList(
+                "SELECT watermark FROM " + WATERMARK_TABLE + " WHERE point_table = ?", Timestamp.class, table);
+        return rows.isEmpty() || rows.get(0) == null ? null : rows.get(0).toLocalDateTime();
+    }
+
+    public Map<String, Timestamp> getAllWatermarks() {
+        Map<String, Timestamp> watermarks = new LinkedHashMap<>();
+        jdbcTemplate.query("SELECT point_table, watermark FROM " + WATERMARK_TABLE + " ORDER BY point_table",
+                rs -> {
+                    watermarks.put(rs.getString("point_table"), rs.getTimestamp("watermark"));
+                });
+        return watermarks;
+    }
+
+    /**
+     * Works out which part of [from, to] can be served from the rollup. Only buckets lying completely
+     * inside the range and below every table's watermark qualify; the edges before {@code lo} and from
+     * {@code hi} onwards still have to be read from the raw tables so results match the raw query exactly.
+     *
+     * @return the rollup window, or null when no complete bucket is covered
+     */
+    public RollupWindow planWindow(List<String> tables, Timestamp from, Timestamp to) {
+        if (!enabled || tables.isEmpty()) {
+            return null;
+        }
+
+        LocalDateTime coveredUntil = getCoveredUntil(tables);
+        if (coveredUntil == null) {
+            return null;
+        }
+
+        LocalDateTime lo = ceilToBucket(from.toLocalDateTime());
+        LocalDateTime hi = floorToBucket(to.toLocalDateTime());
+        if (coveredUntil.isBefore(hi)) {
+            hi = coveredUntil;
+        }
+        if (!lo.isBefore(hi)) {
+            return null;
+        }
+        return new RollupWindow(Timestamp.valueOf(lo), Timestamp.valueOf(hi));
+    }
+
+    /**
+     * Lowest watermark among the given tables, or null if any of them has not been rolled up yet.
+     */
+    private LocalDateTime getCoveredUntil(List<String> tables) {
+        StringBuilder sql = new StringBuilder("SELECT point_table, watermark FROM ")
+                .append(WATERMARK_TABLE).append(" WHERE point_table IN (");
+        for (int i = 0; i < tables.size(); i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        sql.append(")");
+
+        Map<String, Timestamp> watermarks = new HashMap<>();
+        jdbcTemplate.query(sql.toString(), rs -> {
+            watermarks.put(rs.getString("point_table"), rs.getTimestamp("watermark"));
+        }, tables.toArray());
+
+        LocalDateTime min = null;
+        for (String table : tables) {
+            Timestamp watermark = watermarks.get(table);
+            if (watermark == null) {
+                return null;
+            }
+            LocalDateTime value = watermark.toLocalDateTime();
+            if (min == null || value.isBefore(min)) {
+                min = value;
+            }
+        }
+        return min;
+    }
+
+    static LocalDateTime floorToBucket(LocalDateTime time) {
+        LocalDateTime minutes = time.truncatedTo(ChronoUnit.MINUTES);
+        return minutes.withMinute(minutes.getMinute() - minutes.getMinute() % BUCKET_MINUTES);
+    }
+
+    static LocalDateTime ceilToBucket(LocalDateTime time) {
+        LocalDateTime floor = floorToBucket(time);
+        return floor.equals(time) ? floor : floor.plusMinutes(BUCKET_MINUTES);
+    }
+
+    /**
+     * Bucket range [lo, hi) that is answered from ems_trend_rollup
+     */
+    @Getter
+    @RequiredArgsConstructor
+    public static class RollupWindow {
+        private final Timestamp lo;
+        private final Timestamp hi;
+    }
+}
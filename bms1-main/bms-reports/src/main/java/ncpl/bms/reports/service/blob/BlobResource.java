@@ -0,0 +1,52 @@
+package ncpl.bms.reports.service.blob;
+
+import org.springframework.core.io.AbstractResource;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * A stored blob with a known length, opened anew on every read so that range requests can read it again
+ */
+public class BlobResource extends AbstractResource {
+
+    private final BlobStore store;
+    private final String key;
+    private final long size;
+
+    public BlobResource(BlobStore store, String key, long size) {
+        this.store = store;
+        this.key = key;
+        this.size = size;
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return store.open(key);
+    }
+
+    @Override
+    public long contentLength() {
+        return size;
+    }
+
+    @Override
+    public String getFilename() {
+        return key + ".pdf";
+    }
+
+    @Override
+    public String getDescription() {
+        return "Blob [" + store.scheme() + ":" + key + "]";
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return this == other || (other instanceof BlobResource that && store == that.store && key.equals(that.key));
+    }
+
+    @Override
+    public int hashCode() {
+        return key.hashCode();
+    }
+}
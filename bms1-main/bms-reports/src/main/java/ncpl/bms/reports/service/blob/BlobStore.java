@@ -0,0 +1,70 @@
+package ncpl.bms.reports.service.blob;
+
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Content-addressed storage for report PDFs. A blob is keyed by the SHA-256 of its bytes, so storing the same
+ * PDF twice keeps one copy, and a blob is never changed once stored: a stamped PDF is a new blob. Blobs no
+ * report points to any more are deleted by {@code ReportBlobService.collectGarbage}.
+ */
+public interface BlobStore {
+
+    /**
+     * Prefix of the references this store hands out, e.g. "fs" in "fs:3a7bd3e2..."
+     */
+    String scheme();
+
+    /**
+     * Stores the content and closes nothing; the caller owns the stream.
+     *
+     * @return SHA-256 of the content as 64 lowercase hex characters
+     */
+    String put(InputStream content) throws IOException;
+
+    InputStream open(String key) throws IOException;
+
+    long size(String key) throws IOException;
+
+    /**
+     * Keys of the blobs last stored before the cutoff; storing content that is already present counts as
+     * storing it again
+     */
+    List<String> keysStoredBefore(Instant cutoff) throws IOException;
+
+    /**
+     * Removes the blob; a blob that is already gone is not an error
+     */
+    void delete(String key) throws IOException;
+
+    /**
+     * The blob as a resource for download responses; reading it streams the blob and its length comes
+     * from the store, so a download never holds the whole PDF in memory
+     */
+    default Resource resource(String key) throws IOException {
+        return new BlobResource(this, key, size(key));
+    }
+
+    Pattern KEY_PATTERN = Pattern.compile("[0-9a-f]{64}");
+
+    static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    static void checkKey(String key) throws IOException {
+        if (key == null || !KEY_PATTERN.matcher(key).matches()) {
+            throw new IOException("Invalid blob key: " + key);
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package ncpl.bms.reports.service.blob;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Blobs in their own report_blob table, for installations without a usable blob directory and as the
+ * fallback when the file system store cannot write. Keeping them out of the report tables means listing
+ * and status updates never touch the PDF pages. Content is spooled to a temp file while it is hashed and
+ * then streamed into the insert, so a PDF is never held in memory as a whole, in either direction.
+ */
+@Component
+public class DatabaseBlobStore implements BlobStore, CommandLineRunner {
+
+    public static final String SCHEME = "db";
+    public static final String BLOB_TABLE = "report_blob";
+
+    private static final int CHUNK_SIZE = 256 * 1024;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${report.pdf.spool-dir:${java.io.tmpdir}}")
+    private String spoolDir;
+
+    @Override
+    public void run(String... args) {
+        jdbcTemplate.execute("IF NOT EXISTS (SELECT * FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_NAME = '" + BLOB_TABLE + "') " +
+                "CREATE TABLE " + BLOB_TABLE + " (" +
+                "blob_key CHAR(64) NOT NULL PRIMARY KEY, " +
+                "size BIGINT NOT NULL, " +
+                "data VARBINARY(MAX) NOT NULL, " +
+                "created_at DATETIME2 NOT NULL);");
+    }
+
+    @Override
+    public String scheme() {
+        return SCHEME;
+    }
+
+    @Override
+    public String put(InputStream content) throws IOException {
+        Path incoming = Files.createTempFile(Path.of(spoolDir), "bms-blob-", ".tmp");
+        try {
+            MessageDigest digest = BlobStore.sha256();
+            try (OutputStream out = new DigestOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(incoming), BUFFER_SIZE), digest)) {
+                content.transferTo(out);
+            }
+            String key = HexFormat.of().formatHex(digest.digest());
+            long size = Files.size(incoming);
+
+            // Storing it again renews created_at, so garbage collection does not take it before the new reference is written
+            Timestamp now = new Timestamp(System.currentTimeMillis());
+            if (jdbcTemplate.update("UPDATE " + BLOB_TABLE + " SET created_at = ? WHERE blob_key = ?", now, key) > 0) {
+                return key;
+            }
+            try (InputStream data = new BufferedInputStream(Files.newInputStream(incoming), BUFFER_SIZE)) {
+                jdbcTemplate.update("INSERT INTO " + BLOB_TABLE + " (blob_key, size, data, created_at) VALUES (?, ?, ?, ?)", ps -> {
+                    ps.setString(1, key);
+                    ps.setLong(2, size);
+                    ps.setBinaryStream(3, data, size);
+                    ps.setTimestamp(4, now);
+                });
+            } catch (DuplicateKeyException e) {
+                // The same PDF was stored concurrently
+            }
+            return key;
+        } finally {
+            Files.deleteIfExists(incoming);
+        }
+    }
+
+    /**
+     * Reads the blob in chunks of {@value #CHUNK_SIZE} bytes, one short query per chunk, so neither the whole
+     * blob nor a connection is held while the caller consumes the stream
+     */
+    @Override
+    public InputStream open(String key) throws IOException {
+        return new ChunkedBlobInputStream(key, size(key));
+    }
+
+    @Override
+    public long size(String key) throws IOException {
+        BlobStore.checkKey(key);
+        List<Long> sizes = jdbcTemplate.queryForList("SELECT size FROM " + BLOB_TABLE + " WHERE blob_key = ?",
+                Long.class, key);
+        if (sizes.isEmpty()) {
+            throw new IOException("Blob not found: " + SCHEME + ":" + key);
+        }
+        return sizes.get(0);
+    }
+
+    @Override
+    public List<String> keysStoredBefore(Instant cutoff) {
+        return jdbcTemplate.queryForList("SELECT blob_key FROM " + BLOB_TABLE + " WHERE created_at < ?", String.class,
+                Timestamp.from(cutoff));
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        BlobStore.checkKey(key);
+        jdbcTemplate.update("DELETE FROM " + BLOB_TABLE + " WHERE blob_key = ?", key);
+    }
+
+    private class ChunkedBlobInputStream extends InputStream {
+
+        private final String key;
+        private final long size;
+        private long position;
+        private byte[] chunk = new byte[0];
+        private int chunkOffset;
+
+        ChunkedBlobInputStream(String key, long size) {
+            this.key = key;
+            this.size = size;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            if (chunkOffset == chunk.length && !fetch()) {
+                return -1;
+            }
+            int count = Math.min(length, chunk.length - chunkOffset);
+            System.arraycopy(chunk, chunkOffset, buffer, offset, count);
+            chunkOffset += count;
+            return count;
+        }
+
+        // Skipping moves the read position without fetching, which is how range requests seek
+        @Override
+        public long skip(long n) {
+            long buffered = chunk.length - chunkOffset;
+            if (n <= buffered) {
+                chunkOffset += (int) Math.max(n, 0);
+                return Math.max(n, 0);
+            }
+            long skipped = Math.min(n, buffered + size - position);
+            position += skipped - buffered;
+            chunkOffset = chunk.length;
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return chunk.length - chunkOffset;
+        }
+
+        private boolean fetch() throws IOException {
+            if (position >= size) {
+                return false;
+            }
+            // SUBSTRING is 1-based
+            List<byte[]> data = jdbcTemplate.query("SELECT SUBSTRING(data, ?, ?) AS chunk FROM " + BLOB_TABLE + " WHERE blob_key = ?",
+                    (rs, rowNum) -> rs.getBytes("chunk"), position + 1, CHUNK_SIZE, key);
+            if (data.isEmpty() || data.get(0) == null || data.get(0).length == 0) {
+                throw new IOException("Blob " + SCHEME + ":" + key + " ended at " + position + " of " + size + " bytes");
+            }
+            chunk = data.get(0);
+            chunkOffset = 0;
+            position += chunk.length;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package ncpl.bms.reports.service.blob;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Blobs as files under {@code report.blob-store.dir}, at ab/cd/abcd....pdf for a key starting with "abcd".
+ * Content is written to a temp file in the same directory while it is hashed and then moved into place,
+ * so a blob file is either complete or absent.
+ */
+@Component
+public class FileSystemBlobStore implements BlobStore {
+
+    public static final String SCHEME = "fs";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Value("${report.blob-store.dir:${user.home}/bms-report-blobs}")
+    private String rootDir;
+
+    @Override
+    public String scheme() {
+        return SCHEME;
+    }
+
+    @Override
+    public String put(InputStream content) throws IOException {
+        Path root = Path.of(rootDir);
+        Files.createDirectories(root);
+        Path incoming = Files.createTempFile(root, "incoming-", ".tmp");
+        try {
+            MessageDigest digest = BlobStore.sha256();
+            try (OutputStream out = new DigestOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(incoming), BUFFER_SIZE), digest)) {
+                content.transferTo(out);
+            }
+            String key = HexFormat.of().formatHex(digest.digest());
+
+            Path target = path(key);
+            if (Files.exists(target)) {
+                // Counts as stored now, so garbage collection does not take it before the new reference is written
+                Files.setLastModifiedTime(target, FileTime.from(Instant.now()));
+            } else {
+                Files.createDirectories(target.getParent());
+                try {
+                    Files.move(incoming, target, StandardCopyOption.ATOMIC_MOVE);
+                } catch (FileAlreadyExistsException e) {
+                    // The same PDF was stored concurrently
+                }
+            }
+            return key;
+        } finally {
+            Files.deleteIfExists(incoming);
+        }
+    }
+
+    @Override
+    public InputStream open(String key) throws IOException {
+        return Files.newInputStream(path(key));
+    }
+
+    @Override
+    public long size(String key) throws IOException {
+        return Files.size(path(key));
+    }
+
+    @Override
+    public List<String> keysStoredBefore(Instant cutoff) throws IOException {
+        Path root = Path.of(rootDir);
+        if (!Files.isDirectory(root)) {
+            return List.of();
+        }
+        List<String> keys = new ArrayList<>();
+        try (Stream<Path> files = Files.walk(root)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(".pdf") && KEY_PATTERN.matcher(name.substring(0, name.length() - 4)).matches()
+                        && Files.getLastModifiedTime(file).toInstant().isBefore(cutoff)) {
+                    keys.add(name.substring(0, name.length() - 4));
+                }
+            }
+        }
+        return keys;
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        Files.deleteIfExists(path(key));
+    }
+
+    @Override
+    public Resource resource(String key) throws IOException {
+        return new FileSystemResource(path(key));
+    }
+
+    /**
+     * File holding the blob, whether or not it exists
+     */
+    public Path path(String key) throws IOException {
+        BlobStore.checkKey(key);
+        return Path.of(rootDir, key.substring(0, 2), key.substring(2, 4), key + ".pdf");
+    }
+}
@@ -0,0 +1,40 @@
+package ncpl.bms.reports.service.engine;
+
+import java.time.Duration;
+import java.time.Period;
+import java.time.ZonedDateTime;
+
+/**
+ * How far a scheduled report's window lags its run, e.g. to wait for late trend data. Written as an
+ * ISO-8601 period and/or duration: "P16M", "PT15M", "P1DT2H"; "P0D" for none.
+ */
+public record DataOffset(Period period, Duration duration) {
+
+    public static final DataOffset NONE = new DataOffset(Period.ZERO, Duration.ZERO);
+
+    public static DataOffset parse(String text) {
+        if (text == null || text.isBlank()) {
+            return NONE;
+        }
+        String value = text.trim().toUpperCase();
+        int time = value.indexOf('T');
+        if (time < 0) {
+            return new DataOffset(Period.parse(value), Duration.ZERO);
+        }
+        String datePart = value.substring(0, time);
+        return new DataOffset(datePart.equals("P") ? Period.ZERO : Period.parse(datePart),
+                Duration.parse("P" + value.substring(time)));
+    }
+
+    public ZonedDateTime subtractFrom(ZonedDateTime time) {
+        return time.minus(period).minus(duration);
+    }
+
+    @Override
+    public String toString() {
+        if (duration.isZero()) {
+            return period.toString();
+        }
+        return period.isZero() ? duration.toString() : period + duration.toString().substring(1);
+    }
+}
@@ -0,0 +1,331 @@
+package ncpl.bms.reports.service.engine;
+
+import com.lowagie.text.*;
+import com.lowagie.text.pdf.*;
+import lombok.extern.slf4j.Slf4j;
+import ncpl.bms.reports.model.dto.ParameterSpec;
+import ncpl.bms.reports.service.ExcursionAnalyzer;
+import ncpl.bms.reports.service.PageDecorations;
+import ncpl.bms.reports.service.PdfTableWriter;
+import ncpl.bms.reports.service.ReportRenderContext;
+import ncpl.bms.reports.service.TemplateMetadataService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Layout of manually exported reports: room and sensor header, "Printed On / By / Page x of y" footer,
+ * and Max / Min / Avg statistics plus the excursion summary after the table
+ */
+@Component
+@Slf4j
+public class ManualReportLayout implements ReportLayout {
+
+    @Autowired
+    private TemplateMetadataService templateMetadataService;
+
+    @Value("${report.address}")
+    private String address;
+
+    /**
+     * Colour out-of-range cells in manually exported reports, as the scheduled reports do
+     */
+    @Value("${report.pdf.highlight-excursions:false}")
+    private boolean highlightExcursions;
+
+    @Override
+    public List<String> headerLabels(ReportRenderContext context) {
+        Map<String, String> tableToHeaderMap = templateMetadataService.getTableToHeaderMap();
+        List<String> labels = new ArrayList<>();
+
+        // Timestamp header
+        labels.add("Timestamp");
+
+        // Parameter headers with range only if explicitly set
+        for (ParameterSpec spec : templateMetadataService.get(context.getTemplateId()).getParameterSpecs()) {
+            String baseKey = spec.getBaseTable();
+            String headerLabel = tableToHeaderMap.getOrDefault(baseKey, baseKey); // HOT_SPOT_RH for example
+
+            String formattedHeader = spec.hasUnit() ? headerLabel + "(" + spec.getUnit() + ")" : headerLabel;
+
+            if (spec.hasRange()) {
+                formattedHeader += String.format("\nRange: %.0f - %.0f", spec.getFrom(), spec.getTo());
+            }
+            labels.add(formattedHeader);
+        }
+        return labels;
+    }
+
+    @Override
+    public PdfPageEvent pageEvent(ReportRenderContext context) {
+        return new TablePageEvent(context);
+    }
+
+    @Override
+    public boolean highlightExcursions() {
+        return highlightExcursions;
+    }
+
+    @Override
+    public void addSummary(Document document, ReportRenderContext context, ExcursionAnalyzer excursions) {
+        Map<String, Map<String, Map<String, Object>>> statistics = context.getStatistics();
+
+        PdfPTable statisticsTable = new PdfPTable(context.getHeaderLabels().size());
+        statisticsTable.setWidthPercentage(100f);
+        statisticsTable.setSpacingBefore(10);
+
+        PdfTableWriter.addTableHeader(context.getHeaderLabels(), statisticsTable);
+        addStatisticsRow("Max", statistics, statisticsTable);
+        addStatisticsRow("Min", statistics, statisticsTable);
+        addStatisticsRow("Avg", statistics, statisticsTable);
+
+        document.add(statisticsTable);
+        PdfTableWriter.addExcursionSummary(document, excursions, buildColumnLabels(context.getColumns()));
+    }
+
+    @Override
+    public String reportName(ReportRenderContext context) {
+        String dynamicHeading = getDynamicReportHeading(context.getTemplateId());
+        String cleanHeading = dynamicHeading.replaceAll("[^a-zA-Z0-9]", "_").replaceAll("_+", "_");
+        return cleanHeading + ".pdf";
+    }
+
+    private String getRoomIdAndName(Long templateId) {
+        try {
+            return templateMetadataService.get(templateId).getRoomIdAndName();
+        } catch (Exception e) {
+            return "Room ID & Name: N/A";
+        }
+    }
+
+    private String getSubArea(Long templateId) {
+        return templateMetadataService.get(templateId).getReportGroup();
+    }
+
+    private String getDynamicReportHeading(Long templateId) {
+        try {
+            String roomInfo = getRoomIdAndName(templateId); // e.g., "Room ID & Name: BDC012 & Sample Room"
+            if (roomInfo != null && roomInfo.contains(":")) {
+                String[] parts = roomInfo.split(":");
+                if (parts.length > 1) {
+                    return "EMS Report - " + parts[1].trim();
+                }
+            }
+            return "EMS Report";
+        } catch (Exception e) {
+            log.error("❌ Failed to generate static heading", e);
+            return "EMS Report";
+        }
+    }
+
+    private String convertMillisToDate(Long millis) {
+        if (millis == null) {
+            return "N/A"; // Return a default value for null timestamps
+        }
+        SimpleDateFormat sdf = new SimpleDateFormat("dd-MMM-yyyy HH:mm:ss");
+        return sdf.format(new Date(millis));
+    }
+
+    private void addStatisticsRow(String label, Map<String, Map<String, Map<String, Object>>> statistics, PdfPTable table) {
+        Font fontBold = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 10);
+        Font fontNormal = FontFactory.getFont(FontFactory.HELVETICA, 9);
+        List<String> parameterKeys = new ArrayList<>(statistics.keySet());
+
+        boolean hasTimestamp = !label.equalsIgnoreCase("Avg");
+
+        // Label cell
+        PdfPCell labelCell = new PdfPCell(new Phrase(label, fontBold));
+        labelCell.setHorizontalAlignment(Element.ALIGN_CENTER);
+        labelCell.setVerticalAlignment(Element.ALIGN_MIDDLE);
+        if (hasTimestamp) {
+            labelCell.setRowspan(2); // Only Max & Min
+        }
+        table.addCell(labelCell);
+
+        // Value Row
+        for (String parameter : parameterKeys) {
+            Map<String, Object> statData = statistics.get(parameter).get(label.toLowerCase());
+            String valueStr = "null";
+
+            if (statData != null && statData.get("value") != null) {
+                valueStr = statData.get("value").toString();
+            }
+
+            PdfPCell valueCell = new PdfPCell(new Phrase(valueStr, fontNormal));
+            valueCell.setHorizontalAlignment(Element.ALIGN_CENTER);
+            valueCell.setVerticalAlignment(Element.ALIGN_MIDDLE);
+            table.addCell(valueCell);
+        }
+
+        // Timestamp Row (for Max & Min only)
+        if (hasTimestamp) {
+            for (String parameter : parameterKeys) {
+                Map<String, Object> statData = statistics.get(parameter).get(label.toLowerCase());
+                String dateStr = "";
+
+                if (statData != null && statData.get("timestamp") != null) {
+                    try {
+                        long millis = Long.parseLong(statData.get("timestamp").toString());
+                        dateStr = convertMillisToDate(millis);
+                    } catch (Exception ignored) {
+                        dateStr = "N/A";
+                    }
+                }
+
+                PdfPCell dateCell = new PdfPCell(new Phrase(dateStr, fontNormal));
+                dateCell.setHorizontalAlignment(Element.ALIGN_CENTER);
+                dateCell.setVerticalAlignment(Element.ALIGN_MIDDLE);
+                table.addCell(dateCell);
+            }
+        }
+    }
+
+    // Header name (from beckman_room_data) of each report column, without range or unit
+    private List<String> buildColumnLabels(List<String> columns) {
+        Map<String, String> tableToHeaderMap = templateMetadataService.getTableToHeaderMap();
+        List<String> labels = new ArrayList<>(columns.size());
+        for (String column : columns) {
+            labels.add(tableToHeaderMap.getOrDefault(column, column));
+        }
+        return labels;
+    }
+
+    /**
+     * Header with address, logo, room, sensor, user and window, built once per report and added on every page
+     */
+    private PdfPTable buildHeaderTable(ReportRenderContext context) {
+        PdfPTable headerTable = new PdfPTable(3);
+        headerTable.setWidthPercentage(100);
+        headerTable.setWidths(new float[]{40f, 40f, 20f});  // Logo gets rightmost 20%
+
+        PdfPCell addressCell = new PdfPCell(new Paragraph(address, PageDecorations.ADDRESS));
+        addressCell.setBorder(Rectangle.NO_BORDER);
+        addressCell.setHorizontalAlignment(Element.ALIGN_LEFT);
+        addressCell.setVerticalAlignment(Element.ALIGN_MIDDLE);
+        addressCell.setPadding(5);
+
+        // Middle cell - optional (can leave blank or use for subtitle)
+        PdfPCell centerCell = new PdfPCell(new Paragraph(""));
+        centerCell.setBorder(Rectangle.NO_BORDER);
+
+        // Right cell - Logo
+        PdfPCell logoCell = new PdfPCell();
+        try {
+            Image image = PageDecorations.logo();
+            image.scaleToFit(90, 70);
+            image.setAlignment(Image.ALIGN_RIGHT);  // align right inside the cell
+            logoCell.addElement(image);
+        } catch (IOException e) {
+            logoCell.addElement(new Paragraph("Logo"));
+        }
+        logoCell.setBorder(Rectangle.NO_BORDER);
+        logoCell.setPaddingRight(5);
+        logoCell.setHorizontalAlignment(Element.ALIGN_RIGHT);
+        logoCell.setVerticalAlignment(Element.ALIGN_MIDDLE);
+
+        // Sub-info row (Room, Sensor, Date, etc.)
+        PdfPCell infoCell = new PdfPCell();
+        infoCell.setColspan(3);
+        infoCell.setBorder(Rectangle.NO_BORDER);
+        infoCell.setPaddingLeft(5);
+
+        DateTimeFormatter inputFormat = DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm:ss");
+        DateTimeFormatter dateFormat = DateTimeFormatter.ofPattern("dd-MMM-yyyy");
+        DateTimeFormatter timeFormat = DateTimeFormatter.ofPattern("HH:mm:ss");
+
+        LocalDateTime from = LocalDateTime.parse(context.getFormattedFromDateTime(), inputFormat);
+        LocalDateTime to = LocalDateTime.parse(context.getFormattedToDateTime(), inputFormat);
+
+        String displayStartDate = from.format(dateFormat);
+        String displayStartTime = from.format(timeFormat);
+        String displayEndDate = to.format(dateFormat);
+        String displayEndTime = to.format(timeFormat);
+
+        Paragraph paragraph = new Paragraph();
+        paragraph.setFont(PageDecorations.CONTENT);
+        paragraph.setLeading(12f);
+        String roomInfo = getRoomIdAndName(context.getTemplateId());
+        paragraph.add(roomInfo + "\n");
+        String groupName = getSubArea(context.getTemplateId());
+        paragraph.add("Sensor ID : " + groupName + "\n");
+        paragraph.add("Username  : " + context.getUsername() + "\n");
+        paragraph.add("From: " + displayStartDate + " " + displayStartTime + " to " + displayEndDate + " " + displayEndTime + "\n");
+
+        infoCell.addElement(paragraph);
+
+        headerTable.addCell(addressCell);
+        headerTable.addCell(centerCell);
+        headerTable.addCell(logoCell);
+        headerTable.addCell(infoCell);
+        return headerTable;
+    }
+
+    private class TablePageEvent extends PdfPageEventHelper {
+
+        private final PdfPTable headerTable;
+        private final String printedOn;
+        private final String printedBy;
+        private final BaseFont baseFont = PageDecorations.helvetica();
+        private PdfTemplate totalPageTemplate;
+
+        TablePageEvent(ReportRenderContext context) {
+            this.headerTable = buildHeaderTable(context);
+            this.printedOn = "Printed On: " + LocalDateTime.now().format(DateTimeFormatter.ofPattern("dd-MM-yy HH:mm"));
+            this.printedBy = "Printed By: " + context.getUsername();
+        }
+
+        @Override
+        public void onOpenDocument(PdfWriter writer, Document document) {
+            totalPageTemplate = writer.getDirectContent().createTemplate(50, 50);
+        }
+
+        @Override
+        public void onCloseDocument(PdfWriter writer, Document document) {
+            totalPageTemplate.beginText();
+            totalPageTemplate.setFontAndSize(baseFont, 10);
+            totalPageTemplate.setTextMatrix(0, 0);
+            totalPageTemplate.showText(String.valueOf(writer.getPageNumber() - 1));
+            totalPageTemplate.endText();
+        }
+
+        @Override
+        public void onStartPage(PdfWriter writer, Document document) {
+            document.add(headerTable);
+        }
+
+        @Override
+        public void onEndPage(PdfWriter writer, Document document) {
+            PdfContentByte cb = writer.getDirectContent();
+            cb.beginText();
+            cb.setFontAndSize(baseFont, 10);
+
+            int pageNumber = writer.getPageNumber();
+
+            float x = document.right() - 120;
+            float y = document.bottom() - 10;
+
+            // Multiline positioning manually
+            cb.setTextMatrix(x, y + 20);
+            cb.showText(printedOn);
+
+            cb.setTextMatrix(x, y + 8);
+            cb.showText(printedBy);
+
+            String pageText = "Page No: " + pageNumber + " of ";
+            cb.setTextMatrix(x, y - 4);
+            cb.showText(pageText);
+
+            cb.endText();
+            cb.addTemplate(totalPageTemplate, x + baseFont.getWidthPoint(pageText, 10), y - 4);
+        }
+    }
+}
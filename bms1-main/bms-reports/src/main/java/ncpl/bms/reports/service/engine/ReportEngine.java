@@ -0,0 +1,195 @@
+package ncpl.bms.reports.service.engine;
+
+import com.lowagie.text.Document;
+import com.lowagie.text.PageSize;
+import com.lowagie.text.pdf.PdfPageEventHelper;
+import com.lowagie.text.pdf.PdfWriter;
+import lombok.extern.slf4j.Slf4j;
+import ncpl.bms.reports.model.dto.ReportKind;
+import ncpl.bms.reports.service.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Generates every kind of template report the same way: the report query is streamed in frames into a
+ * paged PDF table that is spooled to a temp file, statistics and excursions are accumulated from the same
+ * frames, and the file is handed to the report's {@link ReportSink}. What differs between manual and
+ * scheduled reports is in their {@link ReportLayout}; when scheduled reports run is in {@link ReportPeriod}
+ * and {@link ReportScheduler}.
+ */
+@Service
+@Slf4j
+public class ReportEngine {
+
+    private static final int ROWS_PER_PAGE = 22;
+    private static final int PDF_BUFFER_SIZE = 64 * 1024;
+    private static final int FRAME_CHUNK_ROWS = 1024;
+
+    @Autowired
+    private ReportDataService reportDataService;
+
+    @Autowired
+    private ReportTemplateService templateService;
+
+    @Autowired
+    private TemplateMetadataService templateMetadataService;
+
+    @Autowired
+    private ReportMetrics reportMetrics;
+
+    @Autowired
+    private ReportBlobService reportBlobService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ManualReportLayout manualReportLayout;
+
+    @Autowired
+    private ScheduledReportLayout scheduledReportLayout;
+
+    @Value("${report.pdf.spool-dir:${java.io.tmpdir}}")
+    private String spoolDir;
+
+    /**
+     * Generates and stores a template report, reporting rows fetched, pages rendered and the stored report id
+     * to the given progress
+     *
+     * @return id of the stored report
+     */
+    public long generate(ReportKind kind, Long templateId, String fromDateMillis, String toDateMillis, String username,
+                         String assignedTo, String assignedApprover, ReportJobProgress progress) throws Exception {
+        return generate(kind, templateId, fromDateMillis, toDateMillis, username, assignedTo, assignedApprover, progress, () -> true);
+    }
+
+    /**
+     * Same, asking {@code mayStore} right before the rendered report is stored; when it answers false, or the
+     * progress has been cancelled, the report is discarded and generation fails
+     */
+    public long generate(ReportKind kind, Long templateId, String fromDateMillis, String toDateMillis, String username,
+                         String assignedTo, String assignedApprover, ReportJobProgress progress, BooleanSupplier mayStore) throws Exception {
+        long start = System.nanoTime();
+        ReportLayout layout = layoutFor(kind);
+        ReportSink sink = sinkFor(kind);
+
+        ReportRenderContext context = ReportRenderContext.create(kind, templateId, fromDateMillis, toDateMillis,
+                username, assignedTo, assignedApprover);
+        context.setProgress(progress);
+        long reportId;
+        try {
+            context.setTemplate(templateService.getById(templateId));
+            context.setColumns(reportDataService.getReportColumns(templateId));
+            context.setHeaderLabels(layout.headerLabels(context));
+
+            // The PDF is spooled to a temp file through a bounded buffer and streamed into the blob store,
+            // so neither the rows nor the rendered document are ever held in memory as a whole.
+            Path pdfFile = Files.createTempFile(Path.of(spoolDir), "bms-report-", ".pdf");
+            try {
+                long renderStart = System.nanoTime();
+                long queryNanos;
+                try (OutputStream pdfOut = new BufferedOutputStream(Files.newOutputStream(pdfFile), PDF_BUFFER_SIZE)) {
+                    queryNanos = render(context, layout, pdfOut);
+                }
+                reportMetrics.recordStage(context, ReportMetrics.STAGE_RENDER, System.nanoTime() - renderStart - queryNanos);
+
+                context.setPdfSize(Files.size(pdfFile));
+                reportMetrics.recordRows(context, context.getRowCount());
+                reportMetrics.recordPdfBytes(context, context.getPdfSize());
+
+                if (!progress.startStoring() || !mayStore.getAsBoolean()) {
+                    throw new IllegalStateException(kind.tag() + " report for template " + templateId + " discarded before it was stored");
+                }
+                long storeStart = System.nanoTime();
+                reportId = sink.store(context, layout.reportName(context), pdfFile);
+                reportMetrics.recordStage(context, ReportMetrics.STAGE_STORE, System.nanoTime() - storeStart);
+            } finally {
+                Files.deleteIfExists(pdfFile);
+            }
+        } catch (Exception e) {
+            reportMetrics.recordFailure(context, System.nanoTime() - start, e);
+            throw e;
+        }
+        progress.setReportId(reportId);
+
+        long elapsedNanos = System.nanoTime() - start;
+        reportMetrics.recordSuccess(context, elapsedNanos);
+        log.info("{} report for template {} generated: {} rows, {} bytes in {} ms", kind.tag(), templateId,
+                context.getRowCount(), context.getPdfSize(), TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+        return reportId;
+    }
+
+    /**
+     * @return nanoseconds spent waiting on the report query, i.e. streaming time minus the time spent rendering rows
+     */
+    private long render(ReportRenderContext context, ReportLayout layout, OutputStream pdfOut) {
+        Document document = new Document(PageSize.A4.rotate());
+        PdfWriter writer = PdfWriter.getInstance(document, pdfOut);
+        writer.setPageEvent(layout.pageEvent(context));
+        writer.setPageEvent(new PdfPageEventHelper() {
+            @Override
+            public void onEndPage(PdfWriter pageWriter, Document pageDocument) {
+                context.getProgress().pageRendered();
+                context.getProgress().checkCancelled();
+            }
+        });
+
+        document.open();
+
+        // Statistics are accumulated from the same row stream, so the report query runs only once
+        StatisticsAccumulator accumulator = new StatisticsAccumulator(context.getColumns());
+        ExcursionAnalyzer excursions = ExcursionAnalyzer.forTemplate(context.getColumns(),
+                templateMetadataService.get(context.getTemplateId()));
+        PdfTableWriter tableWriter = new PdfTableWriter(document, context.getHeaderLabels(), ROWS_PER_PAGE,
+                layout.highlightExcursions() ? excursions : null);
+        long[] handlerNanos = new long[1];
+        long streamStart = System.nanoTime();
+        reportDataService.streamReportFrames(context.getTemplateId(), context.getFromDateMillis(), context.getToDateMillis(),
+                FRAME_CHUNK_ROWS, context.getProgress(), frame -> {
+                    context.getProgress().checkCancelled();
+                    long handlerStart = System.nanoTime();
+                    accumulator.accept(frame);
+                    excursions.accept(frame);
+                    tableWriter.processFrame(frame);
+                    context.getProgress().addRowsFetched(frame.size());
+                    handlerNanos[0] += System.nanoTime() - handlerStart;
+                });
+        long queryNanos = System.nanoTime() - streamStart - handlerNanos[0];
+        reportMetrics.recordStage(context, ReportMetrics.STAGE_QUERY, queryNanos);
+        tableWriter.finish();
+        context.setRowCount(tableWriter.getRowCount());
+        context.setStatistics(accumulator.toStatistics());
+
+        layout.addSummary(document, context, excursions);
+        document.close();
+        return queryNanos;
+    }
+
+    private ReportLayout layoutFor(ReportKind kind) {
+        switch (kind) {
+            case MANUAL:
+                return manualReportLayout;
+            case DAILY:
+            case WEEKLY:
+            case MONTHLY:
+                return scheduledReportLayout;
+            default:
+                throw new IllegalArgumentException("Not a template report: " + kind);
+        }
+    }
+
+    private ReportSink sinkFor(ReportKind kind) {
+        // stored_reports keeps the window as datetime, the scheduled report tables as epoch millis text
+        return new StoredReportSink(jdbcTemplate, reportBlobService, ReportBlobService.StoredTable.valueOf(kind.name()),
+                kind == ReportKind.MANUAL);
+    }
+}
@@ -0,0 +1,40 @@
+package ncpl.bms.reports.service.engine;
+
+import com.lowagie.text.Document;
+import com.lowagie.text.pdf.PdfPageEvent;
+import ncpl.bms.reports.service.ExcursionAnalyzer;
+import ncpl.bms.reports.service.ReportRenderContext;
+
+import java.util.List;
+
+/**
+ * How a report looks: table header, page header and footer, what follows the table and the stored name.
+ * The {@link ReportEngine} does the data, table and storage work the same way for every layout.
+ */
+public interface ReportLayout {
+
+    /**
+     * Table header labels, including the leading timestamp label
+     */
+    List<String> headerLabels(ReportRenderContext context);
+
+    /**
+     * Page header and footer; a new instance per report, as page events keep per-document state
+     */
+    PdfPageEvent pageEvent(ReportRenderContext context);
+
+    /**
+     * Whether out-of-range cells are coloured in the table
+     */
+    boolean highlightExcursions();
+
+    /**
+     * Adds whatever follows the table; the context carries the statistics of the whole report by now
+     */
+    void addSummary(Document document, ReportRenderContext context, ExcursionAnalyzer excursions);
+
+    /**
+     * Name the report is stored under
+     */
+    String reportName(ReportRenderContext context);
+}
@@ -0,0 +1,175 @@
+package ncpl.bms.reports.service.engine;
+
+import ncpl.bms.reports.model.dto.ReportKind;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Period strategies of the scheduled reports: where their schedules are kept, the times a schedule fires
+ * between two instants and the data window a run at that time covers
+ */
+public enum ReportPeriod {
+
+    DAILY(ReportKind.DAILY, 1, "daily_scheduled_reports", "DailyTimeOfReport", null) {
+        @Override
+        boolean firesOn(LocalDate date, String day) {
+            return true;
+        }
+
+        @Override
+        ZonedDateTime calendarEnd(ZonedDateTime fireTime) {
+            return fireTime.truncatedTo(ChronoUnit.DAYS);
+        }
+
+        @Override
+        ZonedDateTime calendarStart(ZonedDateTime end) {
+            return end.minusDays(1);
+        }
+    },
+
+    WEEKLY(ReportKind.WEEKLY, 7, "weekly_scheduled_reports", "TimeOfReport", "dayOfReport") {
+        @Override
+        boolean firesOn(LocalDate date, String day) {
+            return date.getDayOfWeek().toString().equalsIgnoreCase(day.trim());
+        }
+
+        @Override
+        ZonedDateTime calendarEnd(ZonedDateTime fireTime) {
+            return fireTime.truncatedTo(ChronoUnit.DAYS).with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        }
+
+        @Override
+        ZonedDateTime calendarStart(ZonedDateTime end) {
+            return end.minusWeeks(1);
+        }
+    },
+
+    MONTHLY(ReportKind.MONTHLY, 30, "monthly_scheduled_reports", "TimeOfReport", "dayOfReport") {
+        // Like the hourly trigger, a day the month does not have (e.g. the 31st) is skipped that month
+        @Override
+        boolean firesOn(LocalDate date, String day) {
+            return date.getDayOfMonth() == Integer.parseInt(day.trim());
+        }
+
+        @Override
+        ZonedDateTime calendarEnd(ZonedDateTime fireTime) {
+            return fireTime.truncatedTo(ChronoUnit.DAYS).withDayOfMonth(1);
+        }
+
+        @Override
+        ZonedDateTime calendarStart(ZonedDateTime end) {
+            return end.minusMonths(1);
+        }
+    };
+
+    /**
+     * ROLLING windows are the {@code days} days up to the hour of the run; CALENDAR windows are the last
+     * whole day, Monday-to-Monday week or calendar month before the run
+     */
+    public enum Alignment {ROLLING, CALENDAR}
+
+    // A month without the schedule's day is followed by one that has it within this many days
+    private static final int MAX_DAYS_BETWEEN_RUNS = 62;
+
+    private final ReportKind kind;
+    private final int days;
+    private final String table;
+    private final String hourColumn;
+    private final String dayColumn;
+
+    ReportPeriod(ReportKind kind, int days, String table, String hourColumn, String dayColumn) {
+        this.kind = kind;
+        this.days = days;
+        this.table = table;
+        this.hourColumn = hourColumn;
+        this.dayColumn = dayColumn;
+    }
+
+    public ReportKind kind() {
+        return kind;
+    }
+
+    public String table() {
+        return table;
+    }
+
+    /**
+     * Query for every schedule of the period, with IdOfReport, Name, assigned_review, assignedApprover,
+     * schedule_date, the schedule's time_zone, window_alignment, data_offset and next_fire, and its
+     * report_hour and report_day (null for daily schedules)
+     */
+    public String scheduleSql() {
+        return "SELECT IdOfReport, Name, assigned_review, assignedApprover, schedule_date, time_zone, window_alignment, " +
+                "data_offset, next_fire, " + hourColumn + " AS report_hour, " + (dayColumn == null ? "NULL" : dayColumn) +
+                " AS report_day FROM " + table;
+    }
+
+    abstract boolean firesOn(LocalDate date, String day);
+
+    abstract ZonedDateTime calendarEnd(ZonedDateTime fireTime);
+
+    abstract ZonedDateTime calendarStart(ZonedDateTime end);
+
+    /**
+     * Times a schedule with the given hour and day fires after {@code after}, up to and including {@code until},
+     * in the zone of {@code until}
+     */
+    public List<ZonedDateTime> fireTimes(int hour, String day, ZonedDateTime after, ZonedDateTime until) {
+        List<ZonedDateTime> fireTimes = new ArrayList<>();
+        LocalDate last = until.toLocalDate();
+        for (LocalDate date = after.withZoneSameInstant(until.getZone()).toLocalDate(); !date.isAfter(last); date = date.plusDays(1)) {
+            if (!firesOn(date, day)) {
+                continue;
+            }
+            ZonedDateTime fireTime = ZonedDateTime.of(date, LocalTime.of(hour, 0), until.getZone());
+            if (fireTime.isAfter(after) && !fireTime.isAfter(until)) {
+                fireTimes.add(fireTime);
+            }
+        }
+        return fireTimes;
+    }
+
+    /**
+     * First time after {@code after} a schedule with the given hour and day fires, in the zone of {@code after}
+     *
+     * @return null when the schedule never fires (e.g. day 32)
+     */
+    public ZonedDateTime nextFire(int hour, String day, ZonedDateTime after) {
+        List<ZonedDateTime> fireTimes = fireTimes(hour, day, after, after.plusDays(MAX_DAYS_BETWEEN_RUNS));
+        return fireTimes.isEmpty() ? null : fireTimes.get(0);
+    }
+
+    /**
+     * Window of a run at the given time, aligned as asked and shifted back by the data offset
+     */
+    public Window window(ZonedDateTime fireTime, Alignment alignment, DataOffset dataOffset) {
+        ZonedDateTime to;
+        ZonedDateTime from;
+        if (alignment == Alignment.CALENDAR) {
+            to = calendarEnd(fireTime);
+            from = calendarStart(to);
+        } else {
+            to = fireTime.truncatedTo(ChronoUnit.HOURS);
+            from = to.minusDays(days);
+        }
+        return new Window(dataOffset.subtractFrom(from), dataOffset.subtractFrom(to));
+    }
+
+    public record Window(ZonedDateTime from, ZonedDateTime to) {
+
+        public String fromMillis() {
+            return Long.toString(from.toInstant().toEpochMilli());
+        }
+
+        public String toMillis() {
+            return Long.toString(to.toInstant().toEpochMilli());
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package ncpl.bms.reports.service.engine;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+/**
+ * One row of a scheduled report table: the template, who reviews and approves it, when it runs (hour and
+ * day in its own time zone) and how its window is aligned and offset from the run
+ *
+ * @param scheduleDate when the schedule was created (epoch millis), also what identifies the row
+ * @param nextFire     next run (epoch millis) the scheduler will wake for, null until indexed
+ */
+public record ReportSchedule(ReportPeriod period, Long templateId, String name, String assignedTo, String assignedApprover,
+                             int hour, String day, Long scheduleDate, ZoneId zone, ReportPeriod.Alignment alignment,
+                             DataOffset dataOffset, Long nextFire) {
+
+    public List<ZonedDateTime> fireTimes(Instant after, Instant until) {
+        return period.fireTimes(hour, day, after.atZone(zone), until.atZone(zone));
+    }
+
+    /**
+     * @return null when the schedule never fires
+     */
+    public ZonedDateTime nextFireAfter(Instant after) {
+        return period.nextFire(hour, day, after.atZone(zone));
+    }
+
+    public ReportPeriod.Window window(ZonedDateTime fireTime) {
+        return period.window(fireTime.withZoneSameInstant(zone), alignment, dataOffset);
+    }
+}
@@ -0,0 +1,305 @@
+package ncpl.bms.reports.service.engine;
+
+import lombok.extern.slf4j.Slf4j;
+import ncpl.bms.reports.exception.ReportQueueFullException;
+import ncpl.bms.reports.service.ReportJobService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * Queues scheduled report runs on the report job pool: the runs that are due, runs missed while the
+ * application was down (caught up at startup from the {@link ScheduleLedger}), and backfills that regenerate
+ * every run of a date range. The scheduler sleeps until the next run in the {@link ScheduleIndex}, waking at
+ * least every report.schedule.max-sleep-minutes to pick up schedules added on other nodes. Every node runs
+ * the scheduler; each run is claimed in the ledger by exactly one of them, and runs of a node that died are
+ * recovered by the others.
+ */
+@Service
+@Slf4j
+public class ReportScheduler {
+
+    @Autowired
+    private ReportEngine reportEngine;
+
+    @Autowired
+    private ReportJobService reportJobService;
+
+    @Autowired
+    private ScheduleLedger scheduleLedger;
+
+    @Autowired
+    private ScheduleIndex scheduleIndex;
+
+    @Autowired
+    private TaskScheduler taskScheduler;
+
+    @Value("${report.schedule.catch-up-on-startup:true}")
+    private boolean catchUpOnStartup;
+
+    @Value("${report.schedule.catch-up-days:35}")
+    private int catchUpDays;
+
+    @Value("${report.schedule.backfill-max-runs:200}")
+    private int backfillMaxRuns;
+
+    @Value("${report.schedule.max-sleep-minutes:15}")
+    private int maxSleepMinutes;
+
+    private ScheduledFuture<?> nextWake;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        scheduleNextWake();
+        if (!catchUpOnStartup) {
+            return;
+        }
+        Thread catchUp = new Thread(() -> {
+            Instant now = Instant.now();
+            for (ReportPeriod period : ReportPeriod.values()) {
+                try {
+                    catchUp(period, now);
+                } catch (Exception e) {
+                    log.error("{} schedule catch-up failed", period.kind().tag(), e);
+                }
+            }
+        }, "report-schedule-catch-up");
+        catchUp.setDaemon(true);
+        catchUp.start();
+    }
+
+    /**
+     * Re-plans the next wake after a schedule was added on this node
+     */
+    public void scheduleChanged() {
+        scheduleNextWake();
+    }
+
+    private synchronized void scheduleNextWake() {
+        Instant now = Instant.now();
+        Instant wakeAt = now.plus(maxSleepMinutes, ChronoUnit.MINUTES);
+        try {
+            scheduleIndex.indexNew(now);
+            Instant nextFire = scheduleIndex.nextFire();
+            if (nextFire != null && nextFire.isBefore(wakeAt)) {
+                wakeAt = nextFire;
+            }
+        } catch (Exception e) {
+            log.error("Failed to read the schedule index, retrying at {}", wakeAt, e);
+        }
+        if (nextWake != null) {
+            nextWake.cancel(false);
+        }
+        nextWake = taskScheduler.schedule(this::wake, wakeAt);
+    }
+
+    private void wake() {
+        try {
+            runDue(Instant.now());
+        } catch (Exception e) {
+            log.error("Scheduled report run failed", e);
+        } finally {
+            scheduleNextWake();
+        }
+    }
+
+    /**
+     * Submits a report job for every run that is due, including earlier runs of the same schedules missed
+     * while nothing was awake (up to report.schedule.catch-up-days back), and moves each schedule on to
+     * its next run
+     */
+    public void runDue(Instant now) {
+        Instant horizon = now.minus(catchUpDays, ChronoUnit.DAYS);
+        for (ReportPeriod period : ReportPeriod.values()) {
+            List<ReportSchedule> due = scheduleIndex.due(period, now);
+            // Nodes waking together claim in different orders, so the due runs are spread over them
+            Collections.shuffle(due);
+            for (ReportSchedule schedule : due) {
+                try {
+                    Instant after = Instant.ofEpochMilli(schedule.nextFire() - 1);
+                    for (ZonedDateTime fireTime : schedule.fireTimes(after.isBefore(horizon) ? horizon : after, now)) {
+                        submit(schedule, fireTime, false, "Automatic");
+                    }
+                    scheduleIndex.advance(schedule, schedule.nextFireAfter(now));
+                } catch (RuntimeException e) {
+                    // Left due, the schedule would wake the scheduler again at once; indexNew retries it on later wakes
+                    log.error("{} schedule of template {} failed to run, taking it out of the index", period.kind().tag(),
+                            schedule.templateId(), e);
+                    scheduleIndex.unindex(schedule);
+                }
+            }
+        }
+    }
+
+    /**
+     * Queues every run of the period's schedules that failed or was missed since their last completed run,
+     * looking back at most report.schedule.catch-up-days. Schedules the ledger has no record of are left alone, so existing
+     * schedules do not backfill their whole history the first time this runs.
+     *
+     * @return number of runs queued
+     */
+    public int catchUp(ReportPeriod period, Instant now) {
+        Instant horizon = now.minus(catchUpDays, ChronoUnit.DAYS);
+        int queued = 0;
+        for (ReportSchedule schedule : scheduleIndex.all(period)) {
+            ZonedDateTime lastRun = scheduleLedger.catchUpFrom(schedule);
+            if (lastRun == null) {
+                continue;
+            }
+            Instant after = lastRun.toInstant();
+            if (after.isBefore(horizon)) {
+                after = horizon;
+            }
+            if (schedule.scheduleDate() != null && after.isBefore(Instant.ofEpochMilli(schedule.scheduleDate()))) {
+                after = Instant.ofEpochMilli(schedule.scheduleDate());
+            }
+            for (ZonedDateTime fireTime : schedule.fireTimes(after, now)) {
+                if (submit(schedule, fireTime, false, "Catch-up") != null) {
+                    queued++;
+                }
+            }
+        }
+        if (queued > 0) {
+            log.info("{} schedule catch-up queued {} missed runs", period.kind().tag(), queued);
+        }
+        return queued;
+    }
+
+    /**
+     * Queues again the runs whose node stopped renewing its ledger lease, i.e. crashed or was stopped while
+     * they were queued or running
+     *
+     * @return number of runs queued
+     */
+    public int recoverExpiredRuns(ReportPeriod period) {
+        List<Map<String, Object>> expired = scheduleLedger.expiredRuns(period);
+        if (expired.isEmpty()) {
+            return 0;
+        }
+        // A template can have several schedules, told apart by schedule_date (0 when it has none)
+        Map<List<Long>, ReportSchedule> schedules = new HashMap<>();
+        for (ReportSchedule schedule : scheduleIndex.all(period)) {
+            schedules.put(List.of(schedule.templateId(), schedule.scheduleDate() == null ? 0L : schedule.scheduleDate()), schedule);
+        }
+        int queued = 0;
+        for (Map<String, Object> run : expired) {
+            ReportSchedule schedule = schedules.get(List.of(((Number) run.get("template_id")).longValue(),
+                    ((Number) run.get("schedule_date")).longValue()));
+            if (schedule == null) {
+                continue; // schedule deleted since
+            }
+            ZonedDateTime fireTime = Instant.ofEpochMilli(((Number) run.get("fire_time")).longValue()).atZone(schedule.zone());
+            if (submit(schedule, fireTime, false, "Recovery") != null) {
+                queued++;
+            }
+        }
+        if (queued > 0) {
+            log.warn("{} schedule recovered {} runs left by a stopped node", period.kind().tag(), queued);
+        }
+        return queued;
+    }
+
+    public void recoverExpiredRuns() {
+        for (ReportPeriod period : ReportPeriod.values()) {
+            recoverExpiredRuns(period);
+        }
+    }
+
+    /**
+     * Regenerates every run of the period's schedules that fell in [from, to], for one template or all of them,
+     * in parallel on the report job pool. Runs already queued are skipped.
+     *
+     * @return ids of the queued report jobs
+     */
+    public List<Long> backfill(ReportPeriod period, Long templateId, Instant from, Instant to, String requestedBy) {
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("Backfill range is empty");
+        }
+        List<ReportSchedule> runs = new ArrayList<>();
+        List<ZonedDateTime> runTimes = new ArrayList<>();
+        for (ReportSchedule schedule : scheduleIndex.all(period)) {
+            if (templateId != null && !templateId.equals(schedule.templateId())) {
+                continue;
+            }
+            for (ZonedDateTime fireTime : schedule.fireTimes(from.minusMillis(1), to)) {
+                runs.add(schedule);
+                runTimes.add(fireTime);
+            }
+        }
+        if (runs.size() > backfillMaxRuns) {
+            throw new IllegalArgumentException("Backfill covers " + runs.size() + " runs, more than the " + backfillMaxRuns + " allowed at once");
+        }
+        if (runs.size() > reportJobService.getRemainingCapacity()) {
+            throw new ReportQueueFullException("Backfill covers " + runs.size() + " runs but the report job queue only has room for "
+                    + reportJobService.getRemainingCapacity() + ", try again later");
+        }
+
+        List<Long> jobIds = new ArrayList<>();
+        for (int i = 0; i < runs.size(); i++) {
+            Long jobId = submit(runs.get(i), runTimes.get(i), true, requestedBy);
+            if (jobId != null) {
+                jobIds.add(jobId);
+            }
+        }
+        log.info("{} backfill of template {} from {} to {} queued {} of {} runs", period.kind().tag(),
+                templateId == null ? "(all)" : templateId, from, to, jobIds.size(), runs.size());
+        return jobIds;
+    }
+
+    /**
+     * Claims the run in the ledger and queues its job. When the job queue is full the claim is released again
+     * and the run stays QUEUED in the ledger for the recovery sweep, rather than running on this thread.
+     *
+     * @return id of the queued job, null if the run was already queued or completed or the job queue is full
+     */
+    private Long submit(ReportSchedule schedule, ZonedDateTime fireTime, boolean regenerate, String requestedBy) {
+        ReportPeriod period = schedule.period();
+        Long templateId = schedule.templateId();
+        if (!scheduleLedger.claim(schedule, fireTime, regenerate)) {
+            return null;
+        }
+        String assignedTo = schedule.assignedTo();
+        String assignedApprover = schedule.assignedApprover();
+        ReportPeriod.Window window = schedule.window(fireTime);
+        String fromDate = window.fromMillis();
+        String toDate = window.toMillis();
+
+        log.info("{} schedule started for ReportId: {}, Report: {}, AssignedTo: {}, AssignedApprover: {}, FromDate: {}, ToDate: {}",
+                period.kind().tag(), templateId, schedule.name(), assignedTo, assignedApprover, window.from(), window.to());
+
+        // Hand the PDF generation to the report job pool so one slow template does not hold up the others
+        long jobId;
+        try {
+            jobId = reportJobService.submit(period.kind(), templateId, fromDate, toDate, requestedBy, progress -> {
+                try {
+                    // A run recovered by another node while this one was still generating is stored there, not here
+                    long reportId = reportEngine.generate(period.kind(), templateId, fromDate, toDate, "Automatic",
+                            assignedTo, assignedApprover, progress, () -> scheduleLedger.holdRun(schedule, fireTime));
+                    scheduleLedger.completed(schedule, fireTime, reportId);
+                } catch (Exception e) {
+                    scheduleLedger.failed(schedule, fireTime);
+                    throw e;
+                }
+            });
+        } catch (ReportQueueFullException e) {
+            log.warn("{} run of template {} at {} left queued for recovery: {}", period.kind().tag(), templateId, fireTime, e.getMessage());
+            scheduleLedger.release(schedule, fireTime);
+            return null;
+        }
+        scheduleLedger.queued(schedule, fireTime, jobId);
+        return jobId;
+    }
+}
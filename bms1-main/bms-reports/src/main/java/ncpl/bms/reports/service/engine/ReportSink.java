@@ -0,0 +1,17 @@
+package ncpl.bms.reports.service.engine;
+
+import ncpl.bms.reports.service.ReportRenderContext;
+
+import java.nio.file.Path;
+
+/**
+ * Where a rendered report goes
+ */
+public interface ReportSink {
+
+    /**
+     * @param pdfFile rendered PDF, deleted by the engine once this returns
+     * @return id of the stored report
+     */
+    long store(ReportRenderContext context, String name, Path pdfFile);
+}
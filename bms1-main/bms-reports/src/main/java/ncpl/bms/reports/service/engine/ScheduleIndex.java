@@ -0,0 +1,206 @@
+package ncpl.bms.reports.service.engine;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.DateTimeException;
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The schedules of the daily, weekly and monthly report tables with their next run. Each schedule row keeps
+ * the time of its next run in next_fire, so the scheduler finds the next time anything is due, and what is
+ * due then, with indexed lookups instead of matching every schedule's hour and day each hour.
+ * <p>
+ * A schedule's time_zone, window_alignment and data_offset default to report.schedule.zone,
+ * report.schedule.window-alignment and report.schedule.data-offset when not set on the row.
+ */
+@Service
+@Slf4j
+public class ScheduleIndex implements CommandLineRunner {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${report.schedule.zone:}")
+    private String defaultZone;
+
+    @Value("${report.schedule.window-alignment:ROLLING}")
+    private String defaultAlignment;
+
+    @Value("${report.schedule.data-offset:P0D}")
+    private String defaultDataOffset;
+
+    @Override
+    public void run(String... args) {
+        for (ReportPeriod period : ReportPeriod.values()) {
+            String table = period.table();
+            addColumnIfMissing(table, "time_zone", "VARCHAR(40) NULL");
+            addColumnIfMissing(table, "window_alignment", "VARCHAR(10) NULL");
+            addColumnIfMissing(table, "data_offset", "VARCHAR(20) NULL");
+            addColumnIfMissing(table, "next_fire", "BIGINT NULL");
+            jdbcTemplate.execute("IF OBJECT_ID('" + table + "') IS NOT NULL AND NOT EXISTS (SELECT * FROM sys.indexes " +
+                    "WHERE name = 'ix_" + table + "_next_fire') CREATE INDEX ix_" + table + "_next_fire ON " + table + " (next_fire);");
+        }
+    }
+
+    private void addColumnIfMissing(String table, String column, String definition) {
+        jdbcTemplate.execute("IF OBJECT_ID('" + table + "') IS NOT NULL AND COL_LENGTH('" + table + "', '" + column + "') IS NULL " +
+                "ALTER TABLE " + table + " ADD " + column + " " + definition + ";");
+    }
+
+    /**
+     * Checks a schedule's day and optional settings before they are stored
+     *
+     * @throws IllegalArgumentException with a message for the client when one of them is invalid
+     */
+    public static void validate(ReportPeriod period, String day, String zone, String alignment, String dataOffset) {
+        if (period == ReportPeriod.WEEKLY && !isDayOfWeek(day)) {
+            throw new IllegalArgumentException("Weekly schedules need a day of the week, not " + day);
+        }
+        if (period == ReportPeriod.MONTHLY && !isDayOfMonth(day)) {
+            throw new IllegalArgumentException("Monthly schedules need a day of the month from 1 to 31, not " + day);
+        }
+        if (zone != null && !zone.isBlank()) {
+            try {
+                ZoneId.of(zone.trim());
+            } catch (DateTimeException e) {
+                throw new IllegalArgumentException("Unknown time zone " + zone);
+            }
+        }
+        if (alignment != null && !alignment.isBlank()
+                && Arrays.stream(ReportPeriod.Alignment.values()).noneMatch(a -> a.name().equalsIgnoreCase(alignment.trim()))) {
+            throw new IllegalArgumentException("Window alignment must be one of " + Arrays.toString(ReportPeriod.Alignment.values()));
+        }
+        try {
+            DataOffset.parse(dataOffset);
+        } catch (DateTimeException e) {
+            throw new IllegalArgumentException("Data offset must be an ISO-8601 period or duration such as P16M or PT15M, not " + dataOffset);
+        }
+    }
+
+    private static boolean isDayOfWeek(String day) {
+        return day != null && Arrays.stream(DayOfWeek.values()).anyMatch(d -> d.name().equalsIgnoreCase(day.trim()));
+    }
+
+    private static boolean isDayOfMonth(String day) {
+        return day != null && day.trim().matches("\\d{1,2}") && Integer.parseInt(day.trim()) >= 1 && Integer.parseInt(day.trim()) <= 31;
+    }
+
+    public List<ReportSchedule> all(ReportPeriod period) {
+        return toSchedules(period, jdbcTemplate.queryForList(period.scheduleSql()));
+    }
+
+    /**
+     * Schedules whose next run is at or before {@code now}
+     */
+    public List<ReportSchedule> due(ReportPeriod period, Instant now) {
+        return toSchedules(period, jdbcTemplate.queryForList(period.scheduleSql() + " WHERE next_fire <= ?", now.toEpochMilli()));
+    }
+
+    /**
+     * Earliest next run of any schedule
+     *
+     * @return null when nothing is scheduled
+     */
+    public Instant nextFire() {
+        StringBuilder sql = new StringBuilder("SELECT MIN(next_fire) FROM (");
+        for (ReportPeriod period : ReportPeriod.values()) {
+            if (period.ordinal() > 0) {
+                sql.append(" UNION ALL ");
+            }
+            sql.append("SELECT MIN(next_fire) AS next_fire FROM ").append(period.table());
+        }
+        Long nextFire = jdbcTemplate.queryForObject(sql.append(") runs").toString(), Long.class);
+        return nextFire == null ? null : Instant.ofEpochMilli(nextFire);
+    }
+
+    /**
+     * Gives schedules that have not been indexed yet (new rows, rows whose next_fire was cleared after an
+     * edit, or schedules that could not be planned before) their first run after {@code now}. A schedule that
+     * cannot be planned is logged and left for the next call.
+     */
+    public void indexNew(Instant now) {
+        for (ReportPeriod period : ReportPeriod.values()) {
+            for (ReportSchedule schedule : toSchedules(period, jdbcTemplate.queryForList(period.scheduleSql() + " WHERE next_fire IS NULL"))) {
+                try {
+                    advance(schedule, schedule.nextFireAfter(now));
+                } catch (RuntimeException e) {
+                    log.warn("{} schedule of template {} cannot be planned (hour {}, day {}): {}", period.kind().tag(),
+                            schedule.templateId(), schedule.hour(), schedule.day(), e.toString());
+                }
+            }
+        }
+    }
+
+    /**
+     * Moves a schedule's next run on; every node computes the same time, so it does not matter which one does.
+     * A schedule that never fires is taken out of the index.
+     */
+    public void advance(ReportSchedule schedule, ZonedDateTime nextFire) {
+        if (nextFire == null) {
+            log.warn("{} schedule of template {} never fires (hour {}, day {})", schedule.period().kind().tag(),
+                    schedule.templateId(), schedule.hour(), schedule.day());
+            unindex(schedule);
+            return;
+        }
+        jdbcTemplate.update("UPDATE " + schedule.period().table() + " SET next_fire = ? WHERE IdOfReport = ? AND " + rowOf(schedule),
+                nextFire.toInstant().toEpochMilli(), schedule.templateId());
+    }
+
+    /**
+     * Clears a schedule's next run, so it no longer wakes the scheduler and is planned again by {@link #indexNew}
+     */
+    public void unindex(ReportSchedule schedule) {
+        jdbcTemplate.update("UPDATE " + schedule.period().table() + " SET next_fire = NULL WHERE IdOfReport = ? AND " + rowOf(schedule),
+                schedule.templateId());
+    }
+
+    private static String rowOf(ReportSchedule schedule) {
+        return schedule.scheduleDate() == null ? "schedule_date IS NULL" : "schedule_date = " + schedule.scheduleDate();
+    }
+
+    private List<ReportSchedule> toSchedules(ReportPeriod period, List<Map<String, Object>> rows) {
+        List<ReportSchedule> schedules = new ArrayList<>();
+        for (Map<String, Object> row : rows) {
+            try {
+                schedules.add(toSchedule(period, row));
+            } catch (RuntimeException e) {
+                log.warn("{} schedule of template {} is unreadable and skipped: {}", period.kind().tag(), row.get("IdOfReport"), e.toString());
+            }
+        }
+        return schedules;
+    }
+
+    private ReportSchedule toSchedule(ReportPeriod period, Map<String, Object> row) {
+        Object scheduleDate = row.get("schedule_date");
+        Object day = row.get("report_day");
+        Number nextFire = (Number) row.get("next_fire");
+        return new ReportSchedule(period,
+                ((Number) row.get("IdOfReport")).longValue(),
+                (String) row.get("Name"),
+                (String) row.get("assigned_review"),
+                (String) row.get("assignedApprover"),
+                Integer.parseInt(row.get("report_hour").toString().trim()),
+                day == null ? null : day.toString(),
+                scheduleDate == null ? null : Long.valueOf(scheduleDate.toString().trim()),
+                ZoneId.of(orDefault((String) row.get("time_zone"), defaultZone.isBlank() ? ZoneId.systemDefault().getId() : defaultZone)),
+                ReportPeriod.Alignment.valueOf(orDefault((String) row.get("window_alignment"), defaultAlignment).toUpperCase()),
+                DataOffset.parse(orDefault((String) row.get("data_offset"), defaultDataOffset)),
+                nextFire == null ? null : nextFire.longValue());
+    }
+
+    private static String orDefault(String value, String defaultValue) {
+        return value == null || value.isBlank() ? defaultValue.trim() : value.trim();
+    }
+}
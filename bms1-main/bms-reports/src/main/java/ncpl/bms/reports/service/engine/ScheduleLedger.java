@@ -0,0 +1,207 @@
+package ncpl.bms.reports.service.engine;
+
+import lombok.extern.slf4j.Slf4j;
+import ncpl.bms.reports.service.ClusterLeaseService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Durable record of scheduled report runs, one row per schedule occurrence (period, template, the schedule's
+ * schedule_date and the hour it fired for; several schedules of one template are kept apart by schedule_date,
+ * 0 for a schedule without one). An occurrence is claimed before its job is queued, so the scheduler, the
+ * startup catch-up and a backfill never queue the same one twice, and is marked completed or failed when the
+ * job ends.
+ * <p>
+ * Several nodes can share one ledger: a claim belongs to the node that made it for as long as that node keeps
+ * renewing its lease. Runs of a node that stopped renewing are handed to another node once the lease expires.
+ */
+@Service
+@Slf4j
+public class ScheduleLedger implements CommandLineRunner {
+
+    static final String LEDGER_TABLE = "report_schedule_ledger";
+
+    public enum Status {QUEUED, COMPLETED, FAILED}
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ClusterLeaseService clusterLeaseService;
+
+    @Override
+    public void run(String... args) {
+        jdbcTemplate.execute("IF NOT EXISTS (SELECT * FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_NAME = '" + LEDGER_TABLE + "') " +
+                "CREATE TABLE " + LEDGER_TABLE + " (" +
+                "period VARCHAR(10) NOT NULL, " +
+                "template_id BIGINT NOT NULL, " +
+                "schedule_date BIGINT NOT NULL CONSTRAINT df_" + LEDGER_TABLE + "_schedule_date DEFAULT 0, " +
+                "fire_time BIGINT NOT NULL, " +
+                "status VARCHAR(10) NOT NULL, " +
+                "job_id BIGINT NULL, " +
+                "report_id BIGINT NULL, " +
+                "updated_at DATETIME2 NOT NULL, " +
+                "CONSTRAINT pk_" + LEDGER_TABLE + " PRIMARY KEY (period, template_id, schedule_date, fire_time));");
+        addColumnIfMissing("owner", "VARCHAR(100) NULL");
+        addColumnIfMissing("lease_until", "DATETIME2 NULL");
+        // Ledgers created before schedule_date: existing rows keep 0 and the key is rebuilt to include it
+        addColumnIfMissing("schedule_date", "BIGINT NOT NULL CONSTRAINT df_" + LEDGER_TABLE + "_schedule_date DEFAULT 0");
+        jdbcTemplate.execute("IF NOT EXISTS (SELECT * FROM sys.indexes i JOIN sys.index_columns ic " +
+                "ON ic.object_id = i.object_id AND ic.index_id = i.index_id " +
+                "WHERE i.object_id = OBJECT_ID('" + LEDGER_TABLE + "') AND i.is_primary_key = 1 " +
+                "AND COL_NAME(ic.object_id, ic.column_id) = 'schedule_date') " +
+                "BEGIN " +
+                "DECLARE @pk SYSNAME = (SELECT name FROM sys.key_constraints WHERE type = 'PK' AND parent_object_id = OBJECT_ID('" + LEDGER_TABLE + "')); " +
+                "EXEC('ALTER TABLE " + LEDGER_TABLE + " DROP CONSTRAINT ' + @pk); " +
+                "EXEC('ALTER TABLE " + LEDGER_TABLE + " ADD CONSTRAINT pk_" + LEDGER_TABLE + " PRIMARY KEY (period, template_id, schedule_date, fire_time)'); " +
+                "END");
+        // Rows recorded before then belong to the template's schedule when it has only one
+        for (ReportPeriod period : ReportPeriod.values()) {
+            String table = period.table();
+            jdbcTemplate.execute("IF OBJECT_ID('" + table + "') IS NOT NULL " +
+                    "UPDATE l SET schedule_date = TRY_CAST(s.schedule_date AS BIGINT) FROM " + LEDGER_TABLE + " l " +
+                    "JOIN " + table + " s ON s.IdOfReport = l.template_id " +
+                    "WHERE l.period = '" + period.name() + "' AND l.schedule_date = 0 AND TRY_CAST(s.schedule_date AS BIGINT) IS NOT NULL " +
+                    "AND (SELECT COUNT(*) FROM " + table + " o WHERE o.IdOfReport = l.template_id) = 1;");
+        }
+    }
+
+    private void addColumnIfMissing(String column, String definition) {
+        jdbcTemplate.execute("IF COL_LENGTH('" + LEDGER_TABLE + "', '" + column + "') IS NULL " +
+                "ALTER TABLE " + LEDGER_TABLE + " ADD " + column + " " + definition + ";");
+    }
+
+    private static final String OCCURRENCE = "period = ? AND template_id = ? AND schedule_date = ? AND fire_time = ?";
+
+    private static List<Object> occurrence(ReportSchedule schedule, ZonedDateTime fireTime) {
+        return List.of(schedule.period().name(), schedule.templateId(), scheduleDate(schedule), fireTime.toInstant().toEpochMilli());
+    }
+
+    private static long scheduleDate(ReportSchedule schedule) {
+        return schedule.scheduleDate() == null ? 0L : schedule.scheduleDate();
+    }
+
+    /**
+     * Claims an occurrence for a new job on this node. A failed occurrence can always be claimed again, a
+     * completed one only when regenerating; a queued one only once its owner's lease has expired.
+     *
+     * @return false when the occurrence is not to be run here
+     */
+    public boolean claim(ReportSchedule schedule, ZonedDateTime fireTime, boolean regenerate) {
+        String node = clusterLeaseService.getNodeId();
+        int leaseSeconds = clusterLeaseService.getLeaseSeconds();
+        try {
+            List<Object> args = new ArrayList<>(occurrence(schedule, fireTime));
+            args.addAll(Arrays.asList(Status.QUEUED.name(), node, leaseSeconds, now()));
+            jdbcTemplate.update("INSERT INTO " + LEDGER_TABLE + " (period, template_id, schedule_date, fire_time, status, owner, lease_until, updated_at) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, DATEADD(SECOND, ?, SYSUTCDATETIME()), ?)", args.toArray());
+            return true;
+        } catch (DuplicateKeyException e) {
+            String claimable = "(status = 'FAILED' OR (status = 'QUEUED' AND (lease_until IS NULL OR lease_until < SYSUTCDATETIME()))" +
+                    (regenerate ? " OR status = 'COMPLETED')" : ")");
+            List<Object> args = new ArrayList<>(Arrays.asList(Status.QUEUED.name(), node, leaseSeconds, now()));
+            args.addAll(occurrence(schedule, fireTime));
+            return jdbcTemplate.update("UPDATE " + LEDGER_TABLE + " SET status = ?, owner = ?, lease_until = DATEADD(SECOND, ?, SYSUTCDATETIME()), " +
+                    "job_id = NULL, report_id = NULL, updated_at = ? WHERE " + OCCURRENCE + " AND " + claimable, args.toArray()) > 0;
+        }
+    }
+
+    /**
+     * Extends the lease of every run this node still has queued or running
+     */
+    public void renewLeases() {
+        jdbcTemplate.update("UPDATE " + LEDGER_TABLE + " SET lease_until = DATEADD(SECOND, ?, SYSUTCDATETIME()) WHERE owner = ? AND status = ?",
+                clusterLeaseService.getLeaseSeconds(), clusterLeaseService.getNodeId(), Status.QUEUED.name());
+    }
+
+    /**
+     * Template id, schedule_date and fire time (epoch millis) of the period's runs whose owner stopped renewing
+     * its lease
+     */
+    public List<Map<String, Object>> expiredRuns(ReportPeriod period) {
+        return jdbcTemplate.queryForList("SELECT template_id, schedule_date, fire_time FROM " + LEDGER_TABLE + " WHERE period = ? AND status = ? " +
+                "AND (lease_until IS NULL OR lease_until < SYSUTCDATETIME())", period.name(), Status.QUEUED.name());
+    }
+
+    /**
+     * Renews this node's lease on one run right before its report is stored
+     *
+     * @return false when another node has taken the run over, so its report must not be stored here
+     */
+    public boolean holdRun(ReportSchedule schedule, ZonedDateTime fireTime) {
+        List<Object> args = new ArrayList<>(List.of(clusterLeaseService.getLeaseSeconds()));
+        args.addAll(occurrence(schedule, fireTime));
+        args.addAll(List.of(clusterLeaseService.getNodeId(), Status.QUEUED.name()));
+        return jdbcTemplate.update("UPDATE " + LEDGER_TABLE + " SET lease_until = DATEADD(SECOND, ?, SYSUTCDATETIME()) " +
+                "WHERE " + OCCURRENCE + " AND owner = ? AND status = ?", args.toArray()) > 0;
+    }
+
+    public void queued(ReportSchedule schedule, ZonedDateTime fireTime, long jobId) {
+        updateOwned("job_id = ?", schedule, fireTime, jobId);
+    }
+
+    public void completed(ReportSchedule schedule, ZonedDateTime fireTime, long reportId) {
+        updateOwned("status = ?, report_id = ?, updated_at = ?", schedule, fireTime, Status.COMPLETED.name(), reportId, now());
+    }
+
+    public void failed(ReportSchedule schedule, ZonedDateTime fireTime) {
+        updateOwned("status = ?, updated_at = ?", schedule, fireTime, Status.FAILED.name(), now());
+    }
+
+    /**
+     * Gives up this node's claim on a run it could not queue, leaving it QUEUED without a lease so the
+     * recovery sweep of any node runs it later
+     */
+    public void release(ReportSchedule schedule, ZonedDateTime fireTime) {
+        updateOwned("status = ?, owner = NULL, lease_until = NULL, job_id = NULL, updated_at = ?", schedule, fireTime,
+                Status.QUEUED.name(), now());
+    }
+
+    // Outcomes are only recorded while this node still owns the run
+    private void updateOwned(String assignments, ReportSchedule schedule, ZonedDateTime fireTime, Object... values) {
+        List<Object> args = new ArrayList<>(Arrays.asList(values));
+        args.addAll(occurrence(schedule, fireTime));
+        args.add(clusterLeaseService.getNodeId());
+        jdbcTemplate.update("UPDATE " + LEDGER_TABLE + " SET " + assignments + " WHERE " + OCCURRENCE + " AND owner = ?", args.toArray());
+    }
+
+    /**
+     * Where catch-up of a schedule starts from: its last completed occurrence, or just before its earliest
+     * recorded one if none has completed yet, moved back to just before its earliest failed occurrence so
+     * failed runs are retried
+     *
+     * @return null when the ledger has no record of the schedule
+     */
+    public ZonedDateTime catchUpFrom(ReportSchedule schedule) {
+        Map<String, Object> row = jdbcTemplate.queryForMap("SELECT MIN(CASE WHEN status = 'FAILED' THEN fire_time END) AS first_failed, " +
+                        "MAX(CASE WHEN status = 'COMPLETED' THEN fire_time END) AS last_completed, " +
+                        "MIN(fire_time) AS first_recorded FROM " + LEDGER_TABLE + " WHERE period = ? AND template_id = ? AND schedule_date = ?",
+                schedule.period().name(), schedule.templateId(), scheduleDate(schedule));
+        Number lastCompleted = (Number) row.get("last_completed");
+        Number firstRecorded = (Number) row.get("first_recorded");
+        Number firstFailed = (Number) row.get("first_failed");
+        if (firstRecorded == null) {
+            return null;
+        }
+        long from = lastCompleted != null ? lastCompleted.longValue() : firstRecorded.longValue() - 1;
+        if (firstFailed != null) {
+            from = Math.min(from, firstFailed.longValue() - 1);
+        }
+        return Instant.ofEpochMilli(from).atZone(schedule.zone());
+    }
+
+    private static Timestamp now() {
+        return new Timestamp(System.currentTimeMillis());
+    }
+}
@@ -0,0 +1,173 @@
+package ncpl.bms.reports.service.engine;
+
+import com.lowagie.text.*;
+import com.lowagie.text.pdf.*;
+import ncpl.bms.reports.service.ExcursionAnalyzer;
+import ncpl.bms.reports.service.PageDecorations;
+import ncpl.bms.reports.service.PdfTableWriter;
+import ncpl.bms.reports.service.ReportRenderContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Layout of daily, weekly and monthly reports: logo, address and heading with the report window on every
+ * page, "Generated By" footer, out-of-range cells coloured and the excursion summary after the table
+ */
+@Component
+public class ScheduledReportLayout implements ReportLayout {
+
+    @Value("${report.address}")
+    private String address;
+
+    @Value("${report.heading}")
+    private String heading;
+
+    @Override
+    public List<String> headerLabels(ReportRenderContext context) {
+        List<String> labels = new ArrayList<>();
+        labels.add("timestamp");
+        labels.addAll(context.getColumns());
+        return labels;
+    }
+
+    @Override
+    public PdfPageEvent pageEvent(ReportRenderContext context) {
+        return new TablePageEvent(context);
+    }
+
+    @Override
+    public boolean highlightExcursions() {
+        return true;
+    }
+
+    @Override
+    public void addSummary(Document document, ReportRenderContext context, ExcursionAnalyzer excursions) {
+        PdfTableWriter.addExcursionSummary(document, excursions, context.getColumns());
+    }
+
+    @Override
+    public String reportName(ReportRenderContext context) {
+        String templateName = context.getTemplate().getName().replaceAll("[^a-zA-Z0-9]", "_"); // Replace non-alphanumeric characters with underscores
+        return templateName + "_" + context.getFormattedFromDateTime() + "_TO_" + context.getFormattedToDateTime() + ".pdf";
+    }
+
+    /**
+     * Logo, address, heading and window, built once per report and added on every page
+     */
+    private PdfPTable buildHeaderTable(ReportRenderContext context) {
+        Font fontTitle = PageDecorations.TITLE;
+
+        PdfPTable headerTable = new PdfPTable(3);
+        headerTable.setWidthPercentage(100);
+
+        // Set width of each column
+        float[] columnWidths = {13f, 10f, 50f};
+        headerTable.setWidths(columnWidths);
+
+        int noBorder = Rectangle.NO_BORDER;
+        PdfPCell cell1 = new PdfPCell(new Paragraph("Cell 1"));
+        cell1.setBorder(noBorder);
+        Image image;
+        try {
+            image = PageDecorations.logo();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        cell1.setImage(image);
+        PdfPCell cell2 = new PdfPCell(new Paragraph(""));
+        cell2.setBorder(noBorder);
+
+        PdfPCell cell3 = new PdfPCell(new Paragraph(address, fontTitle));
+        cell3.setBorder(noBorder);
+
+        PdfPCell cell4 = new PdfPCell(new Paragraph(""));
+        cell4.setBorder(noBorder);
+
+        PdfPCell cell5 = new PdfPCell(new Paragraph(""));
+        cell5.setBorder(noBorder);
+
+        PdfPCell cell6 = new PdfPCell(new Paragraph(heading + " °C\n\n", fontTitle));
+        cell6.setBorder(noBorder);
+        cell6.setHorizontalAlignment(Element.ALIGN_LEFT);
+
+        String fromDateTime = context.getFormattedFromDateTime();
+        String startTime = fromDateTime.split(" ")[1];
+        PdfPCell cell7 = new PdfPCell(new Paragraph("Start Date:" + fromDateTime.split(" ")[0] + "\nStart Time:" + startTime));
+        cell7.setBorder(noBorder);
+
+        String toDateTime = context.getFormattedToDateTime();
+        String endTime = toDateTime.split(" ")[1];
+        PdfPCell cell8 = new PdfPCell(new Paragraph(""));
+        cell8.setBorder(noBorder);
+
+        PdfPCell cell9 = new PdfPCell(new Paragraph("End Date:" + toDateTime.split(" ")[0] + "\nEnd Time:" + endTime + "\nRange: (20-25) °C"));
+        cell9.setBorder(noBorder);
+        cell9.setHorizontalAlignment(Element.ALIGN_RIGHT);
+
+        headerTable.addCell(cell1);
+        headerTable.addCell(cell2);
+        headerTable.addCell(cell3);
+
+        headerTable.addCell(cell4);
+        headerTable.addCell(cell5);
+        headerTable.addCell(cell6);
+
+        headerTable.addCell(cell7);
+        headerTable.addCell(cell8);
+        headerTable.addCell(cell9);
+        return headerTable;
+    }
+
+    /**
+     * "Generated By" footer, built once per report and written at the bottom of every page
+     */
+    private PdfPTable buildFooterTable(ReportRenderContext context) {
+        PdfPTable footerTable = new PdfPTable(2);
+        footerTable.setWidthPercentage(100);
+
+        // Set width of each column
+        float[] columnWidths = {50f, 50f};
+        footerTable.setWidths(columnWidths);
+
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+        String formattedDate = LocalDateTime.now().format(formatter);
+
+        PdfPCell cell1 = new PdfPCell(new Paragraph("Generated By:\nOperator:" + context.getUsername() + "\nDate: " + formattedDate));
+        cell1.setBorder(Rectangle.NO_BORDER);
+
+        PdfPCell cell2 = new PdfPCell(new Paragraph(""));
+        cell2.setBorder(Rectangle.NO_BORDER);
+
+        footerTable.addCell(cell1);
+        footerTable.addCell(cell2);
+        return footerTable;
+    }
+
+    private class TablePageEvent extends PdfPageEventHelper {
+
+        private final PdfPTable headerTable;
+        private final PdfPTable footerTable;
+
+        TablePageEvent(ReportRenderContext context) {
+            this.headerTable = buildHeaderTable(context);
+            this.footerTable = buildFooterTable(context);
+        }
+
+        @Override
+        public void onStartPage(PdfWriter writer, Document document) {
+            document.add(headerTable);
+        }
+
+        @Override
+        public void onEndPage(PdfWriter writer, Document document) {
+            footerTable.setTotalWidth(document.right() - document.left());
+            footerTable.writeSelectedRows(0, -1, document.left(), document.bottom() + 20, writer.getDirectContent());
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package ncpl.bms.reports.service.engine;
+
+import ncpl.bms.reports.service.ReportBlobService;
+import ncpl.bms.reports.service.ReportRenderContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.sql.Timestamp;
+
+/**
+ * Stores the PDF in the blob store and inserts the report row into one of the report tables
+ */
+public class StoredReportSink implements ReportSink {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ReportBlobService reportBlobService;
+    private final ReportBlobService.StoredTable stored;
+    private final boolean datetimeRange;
+
+    /**
+     * @param datetimeRange from_date and to_date are datetime columns (stored_reports) rather than epoch
+     *                      millis as text (the scheduled report tables)
+     */
+    public StoredReportSink(JdbcTemplate jdbcTemplate, ReportBlobService reportBlobService,
+                            ReportBlobService.StoredTable stored, boolean datetimeRange) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.reportBlobService = reportBlobService;
+        this.stored = stored;
+        this.datetimeRange = datetimeRange;
+    }
+
+    @Override
+    public long store(ReportRenderContext context, String name, Path pdfFile) {
+        String blobRef = reportBlobService.store(pdfFile);
+        String generatedDate = Long.toString(System.currentTimeMillis());
+
+        String sql = "INSERT INTO " + stored.table() + " (name, from_date, to_date, blob_ref, generated_by, generated_date, " +
+                "assigned_review, assigned_approver, is_approver_required, template_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+            ps.setString(1, name);
+            if (datetimeRange) {
+                ps.setTimestamp(2, new Timestamp(Long.parseLong(context.getFromDateMillis())));
+                ps.setTimestamp(3, new Timestamp(Long.parseLong(context.getToDateMillis())));
+            } else {
+                ps.setString(2, context.getFromDateMillis());
+                ps.setString(3, context.getToDateMillis());
+            }
+            ps.setString(4, blobRef);
+            ps.setString(5, context.getUsername());
+            ps.setString(6, generatedDate);
+            ps.setString(7, context.getAssignedTo());
+            ps.setString(8, context.getAssignedApprover());
+            ps.setBoolean(9, context.isApproverRequired());
+            ps.setLong(10, context.getTemplateId());
+            return ps;
+        }, keyHolder);
+        return keyHolder.getKey().longValue();
+    }
+}
@@ -0,0 +1,51 @@
+package ncpl.bms.reports.util;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Splits the Niagara ORD stored in alarmOrion_OrionAlarmSource.source
+ * (e.g. {@code .../points/AHU_01/HUMIDITY/HIGH}) into the point name and message text shown in alarm reports.
+ */
+public final class AlarmSourceParser {
+
+    private static final String POINTS_SEGMENT = "points/";
+    private static final Pattern SOURCE_NAME_PATTERN = Pattern.compile("points/([^/]+)");
+
+    private AlarmSourceParser() {
+    }
+
+    /**
+     * First path segment after "points/", or "" when there is none
+     */
+    public static String extractSourceName(String fullSource) {
+        if (fullSource == null) return "";
+        Matcher matcher = SOURCE_NAME_PATTERN.matcher(fullSource);
+        return matcher.find() ? matcher.group(1) : "";
+    }
+
+    /**
+     * Last path segment after "points/"; a HUMIDITY parent segment is kept as a prefix
+     */
+    public static String extractMessageText(String fullSource) {
+        if (fullSource == null) return "";
+
+        int index = fullSource.indexOf(POINTS_SEGMENT);
+        if (index == -1) return "";
+
+        String afterPoints = fullSource.substring(index + POINTS_SEGMENT.length());
+        String[] segments = afterPoints.split("/");
+
+        if (segments.length == 0) {
+            return "";
+        }
+
+        // If second last is HUMIDITY → return HUMIDITY + lastSegment
+        if (segments.length >= 2 && "HUMIDITY".equalsIgnoreCase(segments[segments.length - 2])) {
+            return segments[segments.length - 2] + segments[segments.length - 1];
+        }
+
+        // Else return only last segment
+        return segments[segments.length - 1];
+    }
+}
@@ -0,0 +1,109 @@
+package ncpl.bms.reports.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * HALF_UP rounding to a fixed number of decimals without allocating.
+ * <p>
+ * The result is always identical to {@code new BigDecimal(value.toString()).setScale(scale, HALF_UP).doubleValue()},
+ * which is how report values have always been rounded: the decision is made on the shortest decimal form of the
+ * value, not on its exact binary value. The fast path scales by a power of ten and only decides when the
+ * fraction is clearly away from one half; values close enough to a tie for the binary and decimal forms to
+ * disagree fall back to BigDecimal.
+ */
+public final class DecimalRounding {
+
+    private static final double[] POWERS_OF_TEN = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8};
+
+    // Beyond 2^52 a scaled double has no fractional bits left to round
+    private static final double MAX_FAST_MAGNITUDE = 0x1p52;
+
+    private DecimalRounding() {
+    }
+
+    public static double roundHalfUp(double value, int scale) {
+        if (scale < 0 || scale >= POWERS_OF_TEN.length || !Double.isFinite(value)) {
+            return roundWithBigDecimal(value, scale);
+        }
+        double factor = POWERS_OF_TEN[scale];
+        double magnitude = Math.abs(value) * factor;
+        if (magnitude >= MAX_FAST_MAGNITUDE) {
+            return roundWithBigDecimal(value, scale);
+        }
+
+        // The shortest decimal form of value is within half an ulp of it and the multiplication adds at most
+        // half an ulp of magnitude, so any fraction outside this band rounds the same way in both forms
+        double tolerance = Math.ulp(value) * factor + Math.ulp(magnitude);
+        double result = roundScaled(magnitude, factor, tolerance, value < 0);
+        return Double.isNaN(result) ? roundWithBigDecimal(value, scale) : result;
+    }
+
+    public static double roundHalfUp(float value, int scale) {
+        if (scale < 0 || scale >= POWERS_OF_TEN.length || !Float.isFinite(value)) {
+            return roundWithBigDecimal(value, scale);
+        }
+        double factor = POWERS_OF_TEN[scale];
+        double magnitude = Math.abs((double) value) * factor;
+        if (magnitude >= MAX_FAST_MAGNITUDE) {
+            return roundWithBigDecimal(value, scale);
+        }
+
+        // Same bound as for doubles, with the (much wider) float ulp
+        double tolerance = (double) Math.ulp(value) * factor + Math.ulp(magnitude);
+        double result = roundScaled(magnitude, factor, tolerance, value < 0);
+        return Double.isNaN(result) ? roundWithBigDecimal(value, scale) : result;
+    }
+
+    public static double roundHalfUp(BigDecimal value, int scale) {
+        return value.setScale(scale, RoundingMode.HALF_UP).doubleValue();
+    }
+
+    /**
+     * Rounds any JDBC numeric type the way {@code new BigDecimal(value.toString())} would
+     */
+    public static double roundHalfUp(Number value, int scale) {
+        if (value instanceof Double) {
+            return roundHalfUp(value.doubleValue(), scale);
+        }
+        if (value instanceof Float) {
+            return roundHalfUp(value.floatValue(), scale);
+        }
+        if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            // Whole numbers are unchanged by rounding; both conversions round to the nearest double
+            return value.doubleValue();
+        }
+        if (value instanceof BigDecimal) {
+            return roundHalfUp((BigDecimal) value, scale);
+        }
+        return roundHalfUp(new BigDecimal(value.toString()), scale);
+    }
+
+    /**
+     * @return the rounded result, or NaN when the fraction is too close to one half to decide
+     */
+    private static double roundScaled(double magnitude, double factor, double tolerance, boolean negative) {
+        double floor = Math.floor(magnitude);
+        double fraction = magnitude - floor; // exact, both operands are multiples of ulp(magnitude)
+        if (Math.abs(fraction - 0.5) <= tolerance) {
+            return Double.NaN;
+        }
+        double rounded = fraction > 0.5 ? floor + 1 : floor;
+        if (rounded == 0) {
+            // BigDecimal has no negative zero
+            return 0.0;
+        }
+        // rounded is an exact integer and factor an exact power of ten, so the division is correctly rounded,
+        // which is also what BigDecimal.doubleValue() returns for the same decimal
+        double result = rounded / factor;
+        return negative ? -result : result;
+    }
+
+    static double roundWithBigDecimal(double value, int scale) {
+        return new BigDecimal(Double.toString(value)).setScale(scale, RoundingMode.HALF_UP).doubleValue();
+    }
+
+    static double roundWithBigDecimal(float value, int scale) {
+        return new BigDecimal(Float.toString(value)).setScale(scale, RoundingMode.HALF_UP).doubleValue();
+    }
+}
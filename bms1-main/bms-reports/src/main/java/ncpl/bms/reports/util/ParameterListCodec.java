@@ -0,0 +1,105 @@
+package ncpl.bms.reports.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Encoding of report_template.parameters.
+ * <p>
+ * Version 1 is a version byte followed by a 4 byte element count and, per element, a 4 byte length and the
+ * UTF-8 bytes (length -1 for null); all integers are big-endian. Templates saved before this encoding hold a
+ * Java-serialized {@code List<String>}, recognised by the 0xACED stream magic, which is still decoded so
+ * rows can be read until they have been re-encoded.
+ */
+public final class ParameterListCodec {
+
+    public static final byte VERSION_1 = 1;
+
+    private static final byte JAVA_SERIALIZATION_MAGIC_0 = (byte) 0xAC;
+    private static final byte JAVA_SERIALIZATION_MAGIC_1 = (byte) 0xED;
+
+    // Legacy rows only ever contain a JDK list of strings
+    private static final ObjectInputFilter LEGACY_FILTER = ObjectInputFilter.Config.createFilter("java.util.*;java.lang.*;!*");
+
+    private ParameterListCodec() {
+    }
+
+    public static byte[] encode(List<String> parameters) {
+        if (parameters == null) return null;
+
+        byte[][] encoded = new byte[parameters.size()][];
+        int size = 1 + 4;
+        for (int i = 0; i < encoded.length; i++) {
+            String parameter = parameters.get(i);
+            encoded[i] = parameter == null ? null : parameter.getBytes(StandardCharsets.UTF_8);
+            size += 4 + (encoded[i] == null ? 0 : encoded[i].length);
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.put(VERSION_1);
+        buffer.putInt(encoded.length);
+        for (byte[] bytes : encoded) {
+            if (bytes == null) {
+                buffer.putInt(-1);
+            } else {
+                buffer.putInt(bytes.length);
+                buffer.put(bytes);
+            }
+        }
+        return buffer.array();
+    }
+
+    public static List<String> decode(byte[] data) {
+        if (data == null) return null;
+        if (isLegacy(data)) {
+            return decodeLegacy(data);
+        }
+        if (data.length == 0 || data[0] != VERSION_1) {
+            throw new RuntimeException("Unsupported parameters encoding" + (data.length == 0 ? "" : " version " + data[0]));
+        }
+
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(data, 1, data.length - 1);
+            int count = buffer.getInt();
+            List<String> parameters = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                int length = buffer.getInt();
+                if (length < 0) {
+                    parameters.add(null);
+                } else {
+                    parameters.add(new String(data, buffer.position(), length, StandardCharsets.UTF_8));
+                    buffer.position(buffer.position() + length);
+                }
+            }
+            return Collections.unmodifiableList(parameters);
+        } catch (RuntimeException e) {
+            throw new RuntimeException("Error decoding parameters", e);
+        }
+    }
+
+    /**
+     * True for parameters written with Java serialization, which still need to be re-encoded
+     */
+    public static boolean isLegacy(byte[] data) {
+        return data != null && data.length >= 2
+                && data[0] == JAVA_SERIALIZATION_MAGIC_0 && data[1] == JAVA_SERIALIZATION_MAGIC_1;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<String> decodeLegacy(byte[] data) {
+        try (ByteArrayInputStream bis = new ByteArrayInputStream(data);
+             ObjectInputStream in = new ObjectInputStream(bis)) {
+            in.setObjectInputFilter(LEGACY_FILTER);
+            return Collections.unmodifiableList((List<String>) in.readObject());
+        } catch (IOException | ClassNotFoundException e) {
+            throw new RuntimeException("Error deserializing list", e);
+        }
+    }
+}
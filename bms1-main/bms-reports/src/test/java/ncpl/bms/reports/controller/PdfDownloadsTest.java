@@ -0,0 +1,61 @@
+package ncpl.bms.reports.controller;
+
+import ncpl.bms.reports.model.dto.StoredPdf;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class PdfDownloadsTest {
+
+	private static final byte[] PDF = "%PDF-1.4 stored report".getBytes(StandardCharsets.US_ASCII);
+
+	@RestController
+	static class StoredPdfController {
+		@GetMapping("/pdf")
+		ResponseEntity<Resource> pdf() {
+			return PdfDownloads.pdf(new StoredPdf("report.pdf", new ByteArrayResource(PDF), "abc123"), "inline; filename=report.pdf");
+		}
+	}
+
+	private final MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new StoredPdfController()).build();
+
+	@Test
+	void streamsWholePdfWithLengthAndEtag() throws Exception {
+		mockMvc.perform(get("/pdf"))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.CONTENT_TYPE, "application/pdf"))
+				.andExpect(header().string(HttpHeaders.CONTENT_LENGTH, String.valueOf(PDF.length)))
+				.andExpect(header().string(HttpHeaders.ETAG, "\"abc123\""))
+				.andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+				.andExpect(content().bytes(PDF));
+	}
+
+	@Test
+	void answersRangeRequestsWithPartialContent() throws Exception {
+		mockMvc.perform(get("/pdf").header(HttpHeaders.RANGE, "bytes=0-7"))
+				.andExpect(status().isPartialContent())
+				.andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 0-7/" + PDF.length))
+				.andExpect(header().string(HttpHeaders.CONTENT_LENGTH, "8"))
+				.andExpect(content().bytes("%PDF-1.4".getBytes(StandardCharsets.US_ASCII)));
+	}
+
+	@Test
+	void answersMatchingEtagWithNotModified() throws Exception {
+		mockMvc.perform(get("/pdf").header(HttpHeaders.IF_NONE_MATCH, "\"abc123\""))
+				.andExpect(status().isNotModified())
+				.andExpect(content().bytes(new byte[0]));
+	}
+}
@@ -0,0 +1,49 @@
+package ncpl.bms.reports.model.dto;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ParameterSpecTest {
+
+	@Test
+	void parsesRangeAndUnit() {
+		ParameterSpec spec = ParameterSpec.parse("EMS_NEW_AHU_01_RH_From_18.5_To_25_Unit_%");
+
+		assertEquals("EMS_NEW_AHU_01_RH", spec.getBaseTable());
+		assertEquals(18.5, spec.getFrom());
+		assertEquals(25.0, spec.getTo());
+		assertEquals("%", spec.getUnit());
+		assertTrue(spec.hasRange());
+	}
+
+	@Test
+	void missingPartsAreOpen() {
+		ParameterSpec plain = ParameterSpec.parse("EMS_NEW_AHU_01_TEMP");
+		assertEquals("EMS_NEW_AHU_01_TEMP", plain.getBaseTable());
+		assertEquals(Double.NEGATIVE_INFINITY, plain.getFrom());
+		assertEquals(Double.POSITIVE_INFINITY, plain.getTo());
+		assertFalse(plain.hasUnit());
+
+		ParameterSpec unitOnly = ParameterSpec.parse("EMS_NEW_AHU_01_TEMP_Unit_C");
+		assertEquals("EMS_NEW_AHU_01_TEMP", unitOnly.getBaseTable());
+		assertEquals("C", unitOnly.getUnit());
+		assertFalse(unitOnly.hasRange());
+
+		ParameterSpec negative = ParameterSpec.parse("EMS_NEW_COLD_ROOM_From_-20_To_-15");
+		assertEquals(-20.0, negative.getFrom());
+		assertEquals(-15.0, negative.getTo());
+	}
+
+	@Test
+	void unreadableLimitsAreOpen() {
+		ParameterSpec spec = ParameterSpec.parse("EMS_NEW_AHU_01_RH_From_low_To_25");
+
+		assertEquals("EMS_NEW_AHU_01_RH", spec.getBaseTable());
+		assertEquals(Double.NEGATIVE_INFINITY, spec.getFrom());
+		assertEquals(25.0, spec.getTo());
+		assertFalse(spec.hasRange());
+	}
+}
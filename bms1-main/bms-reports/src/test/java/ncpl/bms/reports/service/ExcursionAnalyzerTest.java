@@ -0,0 +1,53 @@
+package ncpl.bms.reports.service;
+
+import ncpl.bms.reports.model.dto.ParameterSpec;
+import ncpl.bms.reports.model.dto.ReportFrame;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class ExcursionAnalyzerTest {
+
+	private static final long BUCKET = 600_000L;
+
+	@Test
+	void marksCellsAndCountsExcursionsAcrossFrames() {
+		List<String> columns = List.of("EMS_NEW_RH", "EMS_NEW_TEMP");
+		ExcursionAnalyzer analyzer = new ExcursionAnalyzer(columns, new ParameterSpec[]{
+				ParameterSpec.parse("EMS_NEW_RH_From_30_To_60"), null}, BUCKET);
+		ReportFrame frame = new ReportFrame(columns, 4);
+
+		// 70 65 | 65 NaN 20 25 : one excursion above spanning both frames, one below
+		fill(frame, 0, 70, 65);
+		analyzer.accept(frame);
+		assertEquals(ExcursionAnalyzer.ABOVE, analyzer.getFlag(0, 0));
+		assertEquals(ExcursionAnalyzer.IN_RANGE, analyzer.getFlag(1, 0));
+
+		frame.clear();
+		fill(frame, 2, 65, Double.NaN, 20, 25);
+		analyzer.accept(frame);
+		assertEquals(ExcursionAnalyzer.IN_RANGE, analyzer.getFlag(0, 1));
+		assertEquals(ExcursionAnalyzer.BELOW, analyzer.getFlag(0, 2));
+
+		assertEquals(2, analyzer.getExcursionCount(0));
+		assertEquals(3, analyzer.getAboveCount(0));
+		assertEquals(2, analyzer.getBelowCount(0));
+		assertEquals(5, analyzer.getSampleCount(0));
+		assertEquals(5 * BUCKET, analyzer.getTimeOutOfRangeMillis(0));
+		assertEquals(100.0, analyzer.getPercentOutOfRange(0));
+
+		assertFalse(analyzer.hasLimits(1));
+		assertEquals(0, analyzer.getExcursionCount(1));
+	}
+
+	private static void fill(ReportFrame frame, int firstBucket, double... values) {
+		for (int i = 0; i < values.length; i++) {
+			int row = frame.addRow((firstBucket + i) * BUCKET);
+			frame.setValue(0, row, values[i]);
+			frame.setValue(1, row, 21.0);
+		}
+	}
+}
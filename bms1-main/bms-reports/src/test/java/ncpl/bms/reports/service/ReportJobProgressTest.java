@@ -0,0 +1,49 @@
+package ncpl.bms.reports.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReportJobProgressTest {
+
+	@Test
+	void cancellingStopsTheQueryAndTheStore() {
+		ReportJobProgress progress = new ReportJobProgress();
+		AtomicInteger cancels = new AtomicInteger();
+		progress.onCancel(cancels::incrementAndGet);
+
+		assertDoesNotThrow(progress::checkCancelled);
+		assertTrue(progress.cancel());
+		assertEquals(1, cancels.get());
+		assertThrows(CancellationException.class, progress::checkCancelled);
+		assertFalse(progress.startStoring());
+	}
+
+	@Test
+	void runsTheCancelActionRegisteredAfterCancelling() {
+		ReportJobProgress progress = new ReportJobProgress();
+		progress.cancel();
+		AtomicInteger cancels = new AtomicInteger();
+
+		progress.onCancel(cancels::incrementAndGet);
+
+		assertEquals(1, cancels.get());
+	}
+
+	@Test
+	void cannotCancelARunThatIsStoring() {
+		ReportJobProgress progress = new ReportJobProgress();
+		assertTrue(progress.startStoring());
+
+		assertFalse(progress.cancel());
+		assertFalse(progress.isCancelled());
+		assertDoesNotThrow(progress::checkCancelled);
+	}
+}
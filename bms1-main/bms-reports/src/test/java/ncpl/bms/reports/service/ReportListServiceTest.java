@@ -0,0 +1,137 @@
+package ncpl.bms.reports.service;
+
+import ncpl.bms.reports.model.dto.ReportListFilter;
+import ncpl.bms.reports.model.dto.ReportPage;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ReportListServiceTest {
+
+	/**
+	 * Records the list query and answers it with the given rows, newest first
+	 */
+	private static class ListJdbcTemplate extends JdbcTemplate {
+
+		final List<?> rows;
+		String sql;
+		List<Object> args;
+
+		ListJdbcTemplate(List<?> rows) {
+			this.rows = rows;
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public <T> List<T> query(String sql, RowMapper<T> rowMapper, Object... args) {
+			this.sql = sql;
+			this.args = Arrays.asList(args);
+			return new ArrayList<>((List<T>) rows);
+		}
+	}
+
+	private static ReportListService service(ListJdbcTemplate jdbcTemplate) {
+		ReportListService service = new ReportListService();
+		ReflectionTestUtils.setField(service, "jdbcTemplate", jdbcTemplate);
+		return service;
+	}
+
+	private static List<Map<String, Object>> activity(long newestId, int count) {
+		List<Map<String, Object>> rows = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			rows.add(Map.of("id", newestId - i));
+		}
+		return rows;
+	}
+
+	@Test
+	void filtersReportsAfterTheCursorNewestFirst() {
+		ListJdbcTemplate jdbc = new ListJdbcTemplate(List.of());
+		ReportListFilter filter = new ReportListFilter();
+		filter.setCursor(900L);
+		filter.setFrom(1700000000000L);
+		filter.setTo(1700000100000L);
+		filter.setTemplateId(7L);
+		filter.setApproved(true);
+		filter.setGeneratedBy("alice");
+
+		service(jdbc).listReports(ReportBlobService.StoredTable.WEEKLY, filter);
+
+		assertEquals("SELECT TOP (?) id, name, from_date, to_date, generated_by, generated_date, is_approved, approved_by, " +
+				"approved_date, assigned_review, reviewed_by, review_date, is_approver_required, assigned_approver " +
+				"FROM stored_reports_weekly WHERE id < ? AND generated_date >= ? AND generated_date <= ? AND template_id = ? " +
+				"AND is_approved = ? AND generated_by = ? ORDER BY id DESC", jdbc.sql);
+		assertEquals(List.of(ReportListFilter.DEFAULT_LIMIT + 1, 900L, "1700000000000", "1700000100000", 7L, true, "alice"), jdbc.args);
+	}
+
+	@Test
+	void leavesOutFiltersThatAreNotSet() {
+		ListJdbcTemplate jdbc = new ListJdbcTemplate(List.of());
+		ReportListFilter filter = new ReportListFilter();
+		filter.setTo(1700000100000L);
+		filter.setLimit(10000);
+
+		service(jdbc).listActivity(ReportListService.AUDIT_TABLE, filter);
+
+		assertEquals("SELECT TOP (?) id, [timestamp], username, action FROM audit_report WHERE [timestamp] <= ? ORDER BY id DESC", jdbc.sql);
+		assertEquals(List.of(ReportListFilter.MAX_LIMIT + 1, "1700000100000"), jdbc.args);
+
+		service(jdbc).listActivity(ReportListService.LOG_TABLE, new ReportListFilter());
+
+		assertEquals("SELECT TOP (?) id, [timestamp], username, action FROM log_report ORDER BY id DESC", jdbc.sql);
+		assertEquals(List.of(ReportListFilter.DEFAULT_LIMIT + 1), jdbc.args);
+	}
+
+	@Test
+	void boundsAlarmReportsByTimestamp() {
+		ListJdbcTemplate jdbc = new ListJdbcTemplate(List.of());
+		ReportListFilter filter = new ReportListFilter();
+		filter.setFrom(1700000000000L);
+		filter.setGeneratedBy("bob");
+		filter.setLimit(20);
+
+		service(jdbc).listAlarmReports(filter);
+
+		assertEquals("SELECT TOP (?) id, report_name, generated_on, reviewed_by, review_date, generated_by FROM StoredAlarmReport " +
+				"WHERE generated_on >= ? AND generated_by = ? ORDER BY id DESC", jdbc.sql);
+		assertEquals(List.of(21, new Timestamp(1700000000000L), "bob"), jdbc.args);
+	}
+
+	@Test
+	void pointsTheNextCursorAtTheLastRowOfAFullPage() {
+		// limit + 1 rows: there is another page after the limit rows returned
+		ListJdbcTemplate jdbc = new ListJdbcTemplate(activity(100, 4));
+		ReportListFilter filter = new ReportListFilter();
+		filter.setLimit(3);
+
+		ReportPage<Map<String, Object>> page = service(jdbc).listActivity(ReportListService.LOG_TABLE, filter);
+
+		assertEquals(activity(100, 3), page.getItems());
+		assertEquals(98L, page.getNextCursor());
+	}
+
+	@Test
+	void endsOnAPageThatIsNotFull() {
+		ReportListFilter filter = new ReportListFilter();
+		filter.setLimit(3);
+		filter.setCursor(98L);
+
+		ReportPage<Map<String, Object>> exact = service(new ListJdbcTemplate(activity(97, 3))).listActivity(ReportListService.LOG_TABLE, filter);
+		assertEquals(3, exact.getItems().size());
+		assertNull(exact.getNextCursor());
+
+		ReportPage<Map<String, Object>> empty = service(new ListJdbcTemplate(List.of())).listActivity(ReportListService.LOG_TABLE, filter);
+		assertEquals(List.of(), empty.getItems());
+		assertNull(empty.getNextCursor());
+	}
+}
@@ -0,0 +1,236 @@
+package ncpl.bms.reports.service.blob;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DatabaseBlobStoreTest {
+
+	private static final int CHUNK = 256 * 1024;
+	private static final String KEY = "ab".repeat(32);
+
+	/**
+	 * Serves one blob to the size and SUBSTRING queries of the store and records the 1-based offset of every
+	 * chunk fetched; only the first {@code stored} bytes are really there, whatever size the row claims
+	 */
+	private static class BlobJdbcTemplate extends JdbcTemplate {
+
+		final byte[] data;
+		final int stored;
+		final List<Long> fetches = new ArrayList<>();
+
+		BlobJdbcTemplate(byte[] data, int stored) {
+			this.data = data;
+			this.stored = stored;
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public <T> List<T> queryForList(String sql, Class<T> elementType, Object... args) {
+			return (List<T>) List.of((long) data.length);
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public <T> List<T> query(String sql, RowMapper<T> rowMapper, Object... args) {
+			long start = ((Number) args[0]).longValue();
+			int length = ((Number) args[1]).intValue();
+			fetches.add(start);
+			int from = (int) Math.min(start - 1, stored);
+			int to = (int) Math.min(start - 1 + length, stored);
+			return (List<T>) List.<byte[]>of(Arrays.copyOfRange(data, from, to));
+		}
+	}
+
+	/**
+	 * Answers the created_at renewal as if the blob were {@code present}, and records what an insert streams
+	 */
+	private static class PutJdbcTemplate extends JdbcTemplate {
+
+		final boolean present;
+		int renewals;
+		Long insertedSize;
+		byte[] inserted;
+
+		PutJdbcTemplate(boolean present) {
+			this.present = present;
+		}
+
+		@Override
+		public int update(String sql, Object... args) {
+			renewals++;
+			return present ? 1 : 0;
+		}
+
+		@Override
+		public int update(String sql, PreparedStatementSetter pss) {
+			PreparedStatement ps = (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(),
+					new Class<?>[]{PreparedStatement.class}, (proxy, method, args) -> {
+						if (method.getName().equals("setLong")) {
+							insertedSize = (Long) args[1];
+						} else if (method.getName().equals("setBinaryStream")) {
+							try {
+								inserted = ((InputStream) args[1]).readAllBytes();
+							} catch (IOException e) {
+								throw new UncheckedIOException(e);
+							}
+						}
+						return null;
+					});
+			try {
+				pss.setValues(ps);
+			} catch (SQLException e) {
+				throw new IllegalStateException(e);
+			}
+			return 1;
+		}
+	}
+
+	private static byte[] blob(int size) {
+		byte[] data = new byte[size];
+		for (int i = 0; i < size; i++) {
+			data[i] = (byte) (i * 31 + i / CHUNK);
+		}
+		return data;
+	}
+
+	private static DatabaseBlobStore store(BlobJdbcTemplate jdbcTemplate) {
+		DatabaseBlobStore store = new DatabaseBlobStore();
+		ReflectionTestUtils.setField(store, "jdbcTemplate", jdbcTemplate);
+		return store;
+	}
+
+	@Test
+	void skipsWithinTheFetchedChunkWithoutFetching() throws IOException {
+		BlobJdbcTemplate jdbc = new BlobJdbcTemplate(blob(2 * CHUNK + 1000), 2 * CHUNK + 1000);
+		try (InputStream in = store(jdbc).open(KEY)) {
+			assertArrayEquals(Arrays.copyOfRange(jdbc.data, 0, 10), in.readNBytes(10));
+
+			assertEquals(100, in.skip(100));
+			assertEquals(jdbc.data[110] & 0xFF, in.read());
+			assertEquals(CHUNK - 111, in.available());
+		}
+		assertEquals(List.of(1L), jdbc.fetches);
+	}
+
+	@Test
+	void skipsAcrossChunksAndFetchesFromTheNewPosition() throws IOException {
+		BlobJdbcTemplate jdbc = new BlobJdbcTemplate(blob(2 * CHUNK + 1000), 2 * CHUNK + 1000);
+		try (InputStream in = store(jdbc).open(KEY)) {
+			assertEquals(CHUNK + 5, in.skip(CHUNK + 5));
+			assertEquals(jdbc.data[CHUNK + 5] & 0xFF, in.read());
+
+			// From inside the second chunk into the third
+			assertEquals(CHUNK, in.skip(CHUNK));
+			assertEquals(jdbc.data[2 * CHUNK + 6] & 0xFF, in.read());
+		}
+		assertEquals(List.of(CHUNK + 6L, 2L * CHUNK + 7), jdbc.fetches);
+	}
+
+	@Test
+	void readsSpanningAChunkBoundary() throws IOException {
+		BlobJdbcTemplate jdbc = new BlobJdbcTemplate(blob(2 * CHUNK + 1000), 2 * CHUNK + 1000);
+		try (InputStream in = store(jdbc).open(KEY)) {
+			in.read();
+			assertEquals(CHUNK - 5, in.skip(CHUNK - 5));
+			byte[] buffer = new byte[10];
+
+			// One read stops at the end of the chunk, the next fetches the following one
+			assertEquals(4, in.read(buffer, 0, 10));
+			assertEquals(6, in.read(buffer, 4, 6));
+			assertArrayEquals(Arrays.copyOfRange(jdbc.data, CHUNK - 4, CHUNK + 6), buffer);
+		}
+		assertEquals(List.of(1L, CHUNK + 1L), jdbc.fetches);
+	}
+
+	@Test
+	void readsTheWholeBlob() throws IOException {
+		BlobJdbcTemplate jdbc = new BlobJdbcTemplate(blob(2 * CHUNK + 1000), 2 * CHUNK + 1000);
+		try (InputStream in = store(jdbc).open(KEY)) {
+			assertArrayEquals(jdbc.data, in.readAllBytes());
+		}
+		assertEquals(List.of(1L, CHUNK + 1L, 2L * CHUNK + 1), jdbc.fetches);
+	}
+
+	@Test
+	void endsAtTheSizeOfTheBlob() throws IOException {
+		BlobJdbcTemplate jdbc = new BlobJdbcTemplate(blob(CHUNK + 10), CHUNK + 10);
+		try (InputStream in = store(jdbc).open(KEY)) {
+			assertEquals(CHUNK + 7, in.skip(CHUNK + 7));
+			assertArrayEquals(Arrays.copyOfRange(jdbc.data, CHUNK + 7, CHUNK + 10), in.readAllBytes());
+			assertEquals(-1, in.read());
+			assertEquals(-1, in.read(new byte[4], 0, 4));
+			assertEquals(0, in.skip(10));
+		}
+		// Skipping past the end skips what is left
+		try (InputStream in = store(jdbc).open(KEY)) {
+			assertEquals(CHUNK + 10, in.skip(10L * CHUNK));
+			assertEquals(-1, in.read());
+		}
+		assertEquals(List.of(CHUNK + 8L), jdbc.fetches);
+	}
+
+	@Test
+	void failsWhenTheBlobIsShorterThanItsSize() throws IOException {
+		BlobJdbcTemplate jdbc = new BlobJdbcTemplate(blob(CHUNK + 10), CHUNK);
+		try (InputStream in = store(jdbc).open(KEY)) {
+			assertEquals(CHUNK, in.readNBytes(CHUNK).length);
+			assertThrows(IOException.class, in::read);
+		}
+	}
+
+	@Test
+	void streamsNewContentIntoTheInsert(@TempDir Path spool) throws IOException {
+		PutJdbcTemplate jdbc = new PutJdbcTemplate(false);
+		DatabaseBlobStore store = new DatabaseBlobStore();
+		ReflectionTestUtils.setField(store, "jdbcTemplate", jdbc);
+		ReflectionTestUtils.setField(store, "spoolDir", spool.toString());
+		byte[] data = blob(CHUNK + 10);
+
+		String key = store.put(new ByteArrayInputStream(data));
+
+		assertEquals(HexFormat.of().formatHex(BlobStore.sha256().digest(data)), key);
+		assertEquals(1, jdbc.renewals);
+		assertEquals((long) data.length, jdbc.insertedSize);
+		assertArrayEquals(data, jdbc.inserted);
+		try (Stream<Path> files = Files.list(spool)) {
+			assertEquals(0, files.count());
+		}
+	}
+
+	@Test
+	void renewsContentThatIsAlreadyStored(@TempDir Path spool) throws IOException {
+		PutJdbcTemplate jdbc = new PutJdbcTemplate(true);
+		DatabaseBlobStore store = new DatabaseBlobStore();
+		ReflectionTestUtils.setField(store, "jdbcTemplate", jdbc);
+		ReflectionTestUtils.setField(store, "spoolDir", spool.toString());
+
+		store.put(new ByteArrayInputStream(blob(100)));
+
+		assertEquals(1, jdbc.renewals);
+		assertNull(jdbc.inserted);
+	}
+}
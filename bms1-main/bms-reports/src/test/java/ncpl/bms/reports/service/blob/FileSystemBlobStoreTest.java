@@ -0,0 +1,93 @@
+package ncpl.bms.reports.service.blob;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FileSystemBlobStoreTest {
+
+	@TempDir
+	Path root;
+
+	private FileSystemBlobStore store() {
+		FileSystemBlobStore store = new FileSystemBlobStore();
+		ReflectionTestUtils.setField(store, "rootDir", root.toString());
+		return store;
+	}
+
+	@Test
+	void storesContentUnderItsHash() throws IOException {
+		FileSystemBlobStore store = store();
+		byte[] pdf = "%PDF-1.4 report".getBytes(StandardCharsets.US_ASCII);
+
+		String key = store.put(new ByteArrayInputStream(pdf));
+
+		assertEquals(64, key.length());
+		assertEquals(store.path(key), root.resolve(key.substring(0, 2)).resolve(key.substring(2, 4)).resolve(key + ".pdf"));
+		assertEquals(pdf.length, store.size(key));
+		try (InputStream in = store.open(key)) {
+			assertArrayEquals(pdf, in.readAllBytes());
+		}
+	}
+
+	@Test
+	void keepsOneCopyOfIdenticalContent() throws IOException {
+		FileSystemBlobStore store = store();
+		byte[] pdf = "%PDF-1.4 report".getBytes(StandardCharsets.US_ASCII);
+
+		String first = store.put(new ByteArrayInputStream(pdf));
+		String second = store.put(new ByteArrayInputStream(pdf));
+		String other = store.put(new ByteArrayInputStream("%PDF-1.4 stamped".getBytes(StandardCharsets.US_ASCII)));
+
+		assertEquals(first, second);
+		assertNotEquals(first, other);
+		try (Stream<Path> files = Files.walk(root)) {
+			assertEquals(2, files.filter(Files::isRegularFile).count());
+		}
+	}
+
+	@Test
+	void listsAndDeletesBlobsStoredBeforeTheCutoff() throws IOException {
+		FileSystemBlobStore store = store();
+		String old = store.put(new ByteArrayInputStream("%PDF-1.4 old".getBytes(StandardCharsets.US_ASCII)));
+		String recent = store.put(new ByteArrayInputStream("%PDF-1.4 recent".getBytes(StandardCharsets.US_ASCII)));
+		Instant cutoff = Instant.now().minus(1, ChronoUnit.HOURS);
+		Files.setLastModifiedTime(store.path(old), FileTime.from(cutoff.minus(1, ChronoUnit.DAYS)));
+		Files.setLastModifiedTime(store.path(recent), FileTime.from(cutoff.minus(1, ChronoUnit.DAYS)));
+
+		// Storing the same content again makes it recent
+		store.put(new ByteArrayInputStream("%PDF-1.4 recent".getBytes(StandardCharsets.US_ASCII)));
+
+		assertEquals(List.of(old), store.keysStoredBefore(cutoff));
+		store.delete(old);
+		store.delete(old);
+		assertFalse(Files.exists(store.path(old)));
+		assertTrue(Files.exists(store.path(recent)));
+	}
+
+	@Test
+	void rejectsKeysOutsideTheStore() {
+		FileSystemBlobStore store = store();
+		assertThrows(IOException.class, () -> store.open("../../etc/passwd"));
+		assertThrows(IOException.class, () -> store.size("ABC"));
+	}
+}
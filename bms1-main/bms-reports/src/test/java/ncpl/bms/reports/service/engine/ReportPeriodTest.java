@@ -0,0 +1,89 @@
+package ncpl.bms.reports.service.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ReportPeriodTest {
+
+	private static final ZoneId ZONE = ZoneId.of("Asia/Kolkata");
+
+	@Test
+	void rollingWindowEndsAtTheStartOfTheHourShiftedByTheDataOffset() {
+		ZonedDateTime now = ZonedDateTime.of(2025, 9, 10, 7, 42, 13, 5, ZONE);
+		DataOffset offset = DataOffset.parse("P16M");
+
+		ReportPeriod.Window daily = ReportPeriod.DAILY.window(now, ReportPeriod.Alignment.ROLLING, offset);
+		assertEquals(ZonedDateTime.of(2024, 5, 9, 7, 0, 0, 0, ZONE), daily.from());
+		assertEquals(ZonedDateTime.of(2024, 5, 10, 7, 0, 0, 0, ZONE), daily.to());
+
+		assertEquals(ZonedDateTime.of(2024, 5, 3, 7, 0, 0, 0, ZONE), ReportPeriod.WEEKLY.window(now, ReportPeriod.Alignment.ROLLING, offset).from());
+		assertEquals(ZonedDateTime.of(2024, 4, 11, 7, 0, 0, 0, ZONE), ReportPeriod.MONTHLY.window(now, ReportPeriod.Alignment.ROLLING, offset).from());
+		assertEquals(Long.toString(daily.to().toInstant().toEpochMilli()), daily.toMillis());
+	}
+
+	@Test
+	void calendarWindowIsTheLastWholePeriod() {
+		ZonedDateTime now = ZonedDateTime.of(2025, 9, 10, 7, 0, 0, 0, ZONE);
+		DataOffset offset = DataOffset.parse("PT30M");
+
+		ReportPeriod.Window daily = ReportPeriod.DAILY.window(now, ReportPeriod.Alignment.CALENDAR, offset);
+		assertEquals(ZonedDateTime.of(2025, 9, 8, 23, 30, 0, 0, ZONE), daily.from());
+		assertEquals(ZonedDateTime.of(2025, 9, 9, 23, 30, 0, 0, ZONE), daily.to());
+
+		ReportPeriod.Window weekly = ReportPeriod.WEEKLY.window(now, ReportPeriod.Alignment.CALENDAR, DataOffset.NONE);
+		assertEquals(ZonedDateTime.of(2025, 9, 1, 0, 0, 0, 0, ZONE), weekly.from());
+		assertEquals(ZonedDateTime.of(2025, 9, 8, 0, 0, 0, 0, ZONE), weekly.to());
+
+		ReportPeriod.Window monthly = ReportPeriod.MONTHLY.window(now, ReportPeriod.Alignment.CALENDAR, DataOffset.NONE);
+		assertEquals(ZonedDateTime.of(2025, 8, 1, 0, 0, 0, 0, ZONE), monthly.from());
+		assertEquals(ZonedDateTime.of(2025, 9, 1, 0, 0, 0, 0, ZONE), monthly.to());
+	}
+
+	@Test
+	void dataOffsetsCombinePeriodAndDuration() {
+		assertEquals("P1DT2H", DataOffset.parse("p1dt2h").toString());
+		assertEquals("PT15M", DataOffset.parse("PT15M").toString());
+		assertEquals(DataOffset.NONE, DataOffset.parse(" "));
+	}
+
+	@Test
+	void fireTimesListEveryMissedRunAfterTheLastOne() {
+		ZonedDateTime after = ZonedDateTime.of(2025, 9, 8, 7, 0, 0, 0, ZONE);
+		ZonedDateTime until = ZonedDateTime.of(2025, 9, 10, 9, 30, 0, 0, ZONE);
+
+		assertEquals(List.of(ZonedDateTime.of(2025, 9, 9, 7, 0, 0, 0, ZONE), ZonedDateTime.of(2025, 9, 10, 7, 0, 0, 0, ZONE)),
+				ReportPeriod.DAILY.fireTimes(7, null, after, until));
+		assertEquals(List.of(), ReportPeriod.DAILY.fireTimes(10, null, until.minusHours(1), until));
+		assertEquals(List.of(ZonedDateTime.of(2025, 9, 9, 8, 0, 0, 0, ZONE)),
+				ReportPeriod.WEEKLY.fireTimes(8, "tuesday", after, until));
+	}
+
+	@Test
+	void monthlyRunsSkipDaysTheMonthDoesNotHave() {
+		ZonedDateTime after = ZonedDateTime.of(2025, 1, 1, 0, 0, 0, 0, ZONE);
+		ZonedDateTime until = ZonedDateTime.of(2025, 5, 1, 0, 0, 0, 0, ZONE);
+
+		assertEquals(List.of(ZonedDateTime.of(2025, 1, 31, 6, 0, 0, 0, ZONE), ZonedDateTime.of(2025, 3, 31, 6, 0, 0, 0, ZONE)),
+				ReportPeriod.MONTHLY.fireTimes(6, "31", after, until));
+		assertEquals(ZonedDateTime.of(2025, 3, 31, 6, 0, 0, 0, ZONE),
+				ReportPeriod.MONTHLY.nextFire(6, "31", ZonedDateTime.of(2025, 1, 31, 6, 0, 0, 0, ZONE)));
+		assertNull(ReportPeriod.MONTHLY.nextFire(6, "32", after));
+	}
+
+	@Test
+	void scheduleRunsInItsOwnZone() {
+		ZoneId berlin = ZoneId.of("Europe/Berlin");
+		ReportSchedule schedule = new ReportSchedule(ReportPeriod.DAILY, 5L, "Cold room", null, null, 6, null, null,
+				berlin, ReportPeriod.Alignment.ROLLING, DataOffset.NONE, null);
+
+		ZonedDateTime next = schedule.nextFireAfter(ZonedDateTime.of(2025, 9, 10, 9, 0, 0, 0, ZONE).toInstant());
+		assertEquals(ZonedDateTime.of(2025, 9, 10, 6, 0, 0, 0, berlin), next);
+		assertEquals(ZonedDateTime.of(2025, 9, 9, 6, 0, 0, 0, berlin), schedule.window(next.withZoneSameInstant(ZONE)).from());
+	}
+}
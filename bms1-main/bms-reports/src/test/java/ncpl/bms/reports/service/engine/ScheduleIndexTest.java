@@ -0,0 +1,36 @@
+package ncpl.bms.reports.service.engine;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ScheduleIndexTest {
+
+	@Test
+	void acceptsValidSchedules() {
+		assertDoesNotThrow(() -> ScheduleIndex.validate(ReportPeriod.DAILY, null, null, null, null));
+		assertDoesNotThrow(() -> ScheduleIndex.validate(ReportPeriod.WEEKLY, "Monday", "Asia/Kolkata", "calendar", "PT15M"));
+		assertDoesNotThrow(() -> ScheduleIndex.validate(ReportPeriod.MONTHLY, " 31 ", "", " ", "P0D"));
+	}
+
+	@Test
+	void rejectsDaysThePeriodCannotFireOn() {
+		assertThrows(IllegalArgumentException.class, () -> ScheduleIndex.validate(ReportPeriod.WEEKLY, null, null, null, null));
+		assertThrows(IllegalArgumentException.class, () -> ScheduleIndex.validate(ReportPeriod.WEEKLY, "Funday", null, null, null));
+		assertThrows(IllegalArgumentException.class, () -> ScheduleIndex.validate(ReportPeriod.MONTHLY, "first", null, null, null));
+		assertThrows(IllegalArgumentException.class, () -> ScheduleIndex.validate(ReportPeriod.MONTHLY, "32", null, null, null));
+		assertThrows(IllegalArgumentException.class, () -> ScheduleIndex.validate(ReportPeriod.MONTHLY, "0", null, null, null));
+	}
+
+	@Test
+	void rejectsUnknownSettingsWithAMessage() {
+		IllegalArgumentException zone = assertThrows(IllegalArgumentException.class,
+				() -> ScheduleIndex.validate(ReportPeriod.DAILY, null, "Mars/Olympus", null, null));
+		assertEquals("Unknown time zone Mars/Olympus", zone.getMessage());
+
+		assertThrows(IllegalArgumentException.class, () -> ScheduleIndex.validate(ReportPeriod.DAILY, null, null, "weekly", null));
+		assertThrows(IllegalArgumentException.class, () -> ScheduleIndex.validate(ReportPeriod.DAILY, null, null, null, "16 months"));
+	}
+}
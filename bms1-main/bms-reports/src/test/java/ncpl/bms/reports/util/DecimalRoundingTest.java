@@ -0,0 +1,87 @@
+package ncpl.bms.reports.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DecimalRoundingTest {
+
+	@Test
+	void matchesGoldenValues() throws Exception {
+		int checked = 0;
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+				getClass().getResourceAsStream("/rounding/golden-values.csv"), StandardCharsets.UTF_8))) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (line.isBlank() || line.startsWith("#")) {
+					continue;
+				}
+				String[] parts = line.split(",");
+				int scale = Integer.parseInt(parts[2]);
+				double expected = Double.parseDouble(parts[3]);
+				double actual = "float".equals(parts[0])
+						? DecimalRounding.roundHalfUp(Float.parseFloat(parts[1]), scale)
+						: DecimalRounding.roundHalfUp(Double.parseDouble(parts[1]), scale);
+				assertBitsEqual(expected, actual, line);
+				checked++;
+			}
+		}
+		assertTrue(checked > 400, "golden corpus was not loaded");
+	}
+
+	@Test
+	void matchesBigDecimalForRandomSensorValues() {
+		Random random = new Random(20240830L);
+		for (int i = 0; i < 200_000; i++) {
+			// Sensor-like values with two or three decimals produce plenty of exact ties at scale 1
+			double value = Math.round((random.nextDouble() * 2000 - 500) * 1000) / (i % 2 == 0 ? 1000.0 : 10.0) / 10.0;
+			assertBitsEqual(DecimalRounding.roundWithBigDecimal(value, 1), DecimalRounding.roundHalfUp(value, 1), Double.toString(value));
+
+			float floatValue = (float) value;
+			assertBitsEqual(DecimalRounding.roundWithBigDecimal(floatValue, 1), DecimalRounding.roundHalfUp(floatValue, 1), Float.toString(floatValue));
+		}
+	}
+
+	@Test
+	void matchesBigDecimalForRandomBitPatterns() {
+		Random random = new Random(42L);
+		for (int i = 0; i < 200_000; i++) {
+			double value = Double.longBitsToDouble(random.nextLong());
+			if (!Double.isFinite(value)) {
+				continue;
+			}
+			int scale = i % 4;
+			assertBitsEqual(DecimalRounding.roundWithBigDecimal(value, scale), DecimalRounding.roundHalfUp(value, scale), Double.toString(value));
+		}
+	}
+
+	@Test
+	void roundsOtherNumberTypesLikeTheirStringForm() {
+		assertBitsEqual(5.0, DecimalRounding.roundHalfUp(Integer.valueOf(5), 1), "int");
+		assertBitsEqual(-12.0, DecimalRounding.roundHalfUp(Long.valueOf(-12L), 1), "long");
+		assertBitsEqual(23.5, DecimalRounding.roundHalfUp(new BigDecimal("23.45"), 1), "decimal");
+		assertBitsEqual(2.1, DecimalRounding.roundHalfUp((Number) Float.valueOf(2.05f), 1), "float");
+		assertBitsEqual(0.0, DecimalRounding.roundHalfUp((Number) Double.valueOf(-0.04), 1), "negative zero");
+	}
+
+	@Test
+	void nonFiniteValuesFailLikeBigDecimal() {
+		assertThrows(NumberFormatException.class, () -> DecimalRounding.roundHalfUp(Double.NaN, 1));
+		assertThrows(NumberFormatException.class, () -> DecimalRounding.roundHalfUp(Double.POSITIVE_INFINITY, 1));
+	}
+
+	private static void assertBitsEqual(double expected, double actual, String input) {
+		assertNotNull(input);
+		assertEquals(Double.doubleToRawLongBits(expected), Double.doubleToRawLongBits(actual),
+				"rounding " + input + ": expected " + expected + " but was " + actual);
+	}
+}
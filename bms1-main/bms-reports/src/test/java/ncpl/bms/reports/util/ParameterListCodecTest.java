@@ -0,0 +1,48 @@
+package ncpl.bms.reports.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ParameterListCodecTest {
+
+	@Test
+	void roundTripsParameters() {
+		List<String> parameters = Arrays.asList("EMS_NEW_AHU_01_RH_From_18_To_25_Unit_%", "EMS_NEW_TEMP_°C", "", null);
+		byte[] encoded = ParameterListCodec.encode(parameters);
+
+		assertEquals(ParameterListCodec.VERSION_1, encoded[0]);
+		assertFalse(ParameterListCodec.isLegacy(encoded));
+		assertEquals(parameters, ParameterListCodec.decode(encoded));
+		assertEquals(List.of(), ParameterListCodec.decode(ParameterListCodec.encode(List.of())));
+		assertNull(ParameterListCodec.decode(null));
+	}
+
+	@Test
+	void decodesJavaSerializedParameters() throws Exception {
+		List<String> parameters = new ArrayList<>(List.of("EMS_NEW_AHU_01_RH", "EMS_NEW_AHU_02_TEMP_From_18_To_25_Unit_C"));
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(bos)) {
+			out.writeObject(parameters);
+		}
+
+		assertTrue(ParameterListCodec.isLegacy(bos.toByteArray()));
+		assertEquals(parameters, ParameterListCodec.decode(bos.toByteArray()));
+	}
+
+	@Test
+	void rejectsUnknownVersions() {
+		assertThrows(RuntimeException.class, () -> ParameterListCodec.decode(new byte[]{9, 0, 0, 0, 0}));
+		assertThrows(RuntimeException.class, () -> ParameterListCodec.decode(new byte[]{ParameterListCodec.VERSION_1, 0, 0, 0, 2}));
+	}
+}